@@ -7,11 +7,11 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
-import androidx.browser.customtabs.CustomTabsIntent;
 import androidx.core.content.ContextCompat;
 
 import com.firebase.ui.auth.ui.HelperActivityBase;
 import com.firebase.ui.auth.util.ExtraConstants;
+import com.firebase.ui.auth.util.ui.CustomTabsSessionManager;
 
 /**
  * These are our goals for GitHub login:
@@ -54,13 +54,16 @@ public class GitHubLoginActivity extends HelperActivityBase {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         if (savedInstanceState == null) {
-            new CustomTabsIntent.Builder()
+            Uri url = getIntent().getParcelableExtra(ExtraConstants.GITHUB_URL);
+            // Reuse the session warmed up by the picker so the browser can prefetch the page
+            CustomTabsSessionManager sessions = CustomTabsSessionManager.getInstance();
+            sessions.mayLaunchUrls(this, url.toString());
+            sessions.newIntentBuilder()
                     .setShowTitle(true)
                     .enableUrlBarHiding()
                     .setToolbarColor(ContextCompat.getColor(this, R.color.colorPrimary))
                     .build()
-                    .launchUrl(this,
-                            (Uri) getIntent().getParcelableExtra(ExtraConstants.GITHUB_URL));
+                    .launchUrl(this, url);
             mShouldCloseCustomTab = false;
         } else {
             mShouldCloseCustomTab = savedInstanceState.getBoolean(SHOULD_CLOSE_CCT_KEY);
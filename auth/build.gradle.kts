@@ -28,8 +28,10 @@ dependencies {
     implementation(Libs.annotation)
     implementation(Libs.appcompat)
     implementation(Libs.library)
-    implementation(Libs.vvalidator)
     implementation(Libs.lifecycle_extensions)
+    implementation(Libs.lifecycle_viewmodel_ktx)
+    api(Libs.kotlinx_coroutines_android)
+    implementation(Libs.kotlinx_coroutines_play_services)
     annotationProcessor(Libs.lifecycle_compiler)
 
     api(Libs.firebase_auth)
@@ -21,7 +21,10 @@ import android.util.Log;
 
 import com.facebook.login.LoginManager;
 import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.data.remote.DeferredOperationQueue;
 import com.firebase.ui.auth.data.remote.TwitterSignInHandler;
+import com.firebase.ui.auth.ui.HelperActivityBase;
+import com.firebase.ui.auth.ui.idp.AuthMethodPickerActivity;
 import com.firebase.ui.auth.util.*;
 import com.firebase.ui.auth.util.data.*;
 import com.google.android.gms.auth.api.credentials.*;
@@ -29,11 +32,16 @@ import com.google.android.gms.auth.api.signin.*;
 import com.google.android.gms.common.api.*;
 import com.google.android.gms.tasks.*;
 import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseAppLifecycleListener;
+import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.*;
 import com.twitter.sdk.android.core.TwitterCore;
 
 import java.lang.annotation.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.*;
 
@@ -64,13 +72,20 @@ public final class AuthUI {
 
     public static final String UNCONFIGURED_CONFIG_VALUE = "CHANGE-ME";
 
-    private static final IdentityHashMap<FirebaseApp, AuthUI> INSTANCES = new IdentityHashMap<>();
+    /**
+     * Instances by app. Reads don't lock once an instance exists, each one is created once by its
+     * holder and dropped when its app is deleted.
+     */
+    private static final ConcurrentMap<FirebaseApp, InstanceHolder> INSTANCES =
+            new ConcurrentHashMap<>();
 
-    private static Context sApplicationContext;
+    private static volatile Context sApplicationContext;
 
     private final FirebaseApp mApp;
     private final FirebaseAuth mAuth;
 
+    private volatile NetworkPolicy mNetworkPolicy = NetworkPolicy.DEFAULT;
+
     private AuthUI(FirebaseApp app) {
         mApp = app;
         mAuth = FirebaseAuth.getInstance(mApp);
@@ -84,9 +99,26 @@ public final class AuthUI {
     }
 
 
+    /**
+     * Get the application context. It is set by {@code AuthUiInitProvider} at process start or,
+     * if that provider was removed from the manifest, captured from the first {@link FirebaseApp}
+     * FirebaseUI is used with.
+     *
+     * @throws IllegalStateException if neither is available yet.
+     */
     @NonNull
     public static Context getApplicationContext() {
-        return sApplicationContext;
+        Context context = sApplicationContext;
+        if (context == null) {
+            try {
+                context = FirebaseApp.getInstance().getApplicationContext();
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("FirebaseUI is not initialized. Initialize the"
+                        + " default FirebaseApp or call AuthUI.setApplicationContext first.", e);
+            }
+            sApplicationContext = context;
+        }
+        return context;
     }
 
 
@@ -94,6 +126,48 @@ public final class AuthUI {
         sApplicationContext = Preconditions.checkNotNull(context, "App context cannot be null.").getApplicationContext();
     }
 
+    @VisibleForTesting
+    static void resetApplicationContext() {
+        sApplicationContext = null;
+    }
+
+    /**
+     * Set a listener to receive the timed stages of every sign-in flow, or {@code null} to stop
+     * tracing. Spans are only created while a listener is set.
+     *
+     * @see SignInSpan
+     */
+    public static void setMetricsListener(@Nullable MetricsListener listener) {
+        SignInTracer.getInstance().setListener(listener);
+    }
+
+    /**
+     * Start or stop aggregating the latencies of sign-in stages for {@link #getStatsSnapshot()}.
+     * Disabled by default, in which case no listeners are added to sign-in tasks for stats.
+     */
+    public static void setStatsEnabled(boolean enabled) {
+        SignInTracer.getInstance().setStatsEnabled(enabled);
+    }
+
+    /**
+     * Get the latency percentiles of sign-in stages recorded since the process started, while
+     * stats were enabled with {@link #setStatsEnabled(boolean)}. These are collected whether or
+     * not a {@link MetricsListener} is set.
+     */
+    @NonNull
+    public static SignInStats getStatsSnapshot() {
+        return SignInStatsRecorder.getInstance().snapshot();
+    }
+
+    /**
+     * Set the executor running the continuations of sign-in, sign-out and deletion tasks, or
+     * {@code null} to use the library's own background threads. Results are always delivered on
+     * the main thread.
+     */
+    public static void setBackgroundExecutor(@Nullable Executor executor) {
+        BackgroundExecutor.set(executor);
+    }
+
     /**
      * Retrieves the {@link AuthUI} instance associated with the default app, as returned by {@code FirebaseApp.getInstance()}.
      *
@@ -109,15 +183,20 @@ public final class AuthUI {
      */
     @NonNull
     public static AuthUI getInstance(@NonNull FirebaseApp app) {
-        AuthUI authUi;
-        synchronized (INSTANCES) {
-            authUi = INSTANCES.get(app);
-            if (authUi == null) {
-                authUi = new AuthUI(app);
-                INSTANCES.put(app, authUi);
+        if (sApplicationContext == null) {
+            sApplicationContext = app.getApplicationContext();
+        }
+
+        InstanceHolder holder = INSTANCES.get(app);
+        if (holder == null) {
+            InstanceHolder created = new InstanceHolder(app);
+            holder = INSTANCES.putIfAbsent(app, created);
+            if (holder == null) {
+                holder = created;
+                app.addLifecycleEventListener(created);
             }
         }
-        return authUi;
+        return holder.get();
     }
 
     /**
@@ -187,7 +266,7 @@ public final class AuthUI {
                                 .setAccountTypes(ProviderUtils.providerIdToAccountType(GoogleAuthProvider.PROVIDER_ID))
                                 .build()
                 )
-                .continueWithTask(new Continuation<CredentialRequestResponse, Task<AuthResult>>() {
+                .continueWithTask(BackgroundExecutor.get(), new Continuation<CredentialRequestResponse, Task<AuthResult>>() {
                     @Override
                     public Task<AuthResult> then(@NonNull Task<CredentialRequestResponse> task) {
                         Credential credential = task.getResult().getCredential();
@@ -210,7 +289,7 @@ public final class AuthUI {
         return GoogleSignIn
                 .getClient(context, new GoogleSignInOptions.Builder(googleOptions).setAccountName(email).build())
                 .silentSignIn()
-                .continueWithTask(task -> {
+                .continueWithTask(BackgroundExecutor.get(), task -> {
                     AuthCredential credential = GoogleAuthProvider.getCredential(task.getResult().getIdToken(), null);
                     return mAuth.signInWithCredential(credential);
                 });
@@ -229,9 +308,17 @@ public final class AuthUI {
      */
     @NonNull
     public Task<Void> signOut(@NonNull Context context) {
-        Task<Void> maybeDisableAutoSignIn = GoogleApiUtils.getCredentialsClient(context)
-                .disableAutoSignIn()
-                .continueWith(new Continuation<Void, Void>() {
+        Task<Void> disableAutoSignIn =
+                GoogleApiUtils.getCredentialsClient(context).disableAutoSignIn();
+        return signOut(signOutIdps(context), disableAutoSignIn);
+    }
+
+    @VisibleForTesting
+    @RestrictTo(RestrictTo.Scope.TESTS)
+    @NonNull
+    public Task<Void> signOut(@NonNull Task<Void> idpSignOut, @NonNull Task<Void> disableAutoSignIn) {
+        Task<Void> maybeDisableAutoSignIn = disableAutoSignIn
+                .continueWith(BackgroundExecutor.get(), new Continuation<Void, Void>() {
                     @Override
                     public Void then(@NonNull Task<Void> task) {
                         // We want to ignore a specific exception, since it's not a good reason
@@ -247,8 +334,8 @@ public final class AuthUI {
                     }
                 });
 
-        return Tasks.whenAll(signOutIdps(context), maybeDisableAutoSignIn)
-                .continueWith(task -> {
+        return Tasks.whenAll(idpSignOut, maybeDisableAutoSignIn)
+                .continueWith(BackgroundExecutor.get(), task -> {
                     task.getResult(); // Propagate exceptions
                     mAuth.signOut();
                     return null;
@@ -269,41 +356,31 @@ public final class AuthUI {
                     "No currently signed in user."));
         }
 
+        return delete(currentUser,
+                signOutIdps(context),
+                DeferredOperationQueue.getInstance(context));
+    }
+
+    @VisibleForTesting
+    @RestrictTo(RestrictTo.Scope.TESTS)
+    @NonNull
+    public Task<Void> delete(@NonNull final FirebaseUser currentUser,
+                             @NonNull Task<Void> idpSignOut,
+                             @NonNull final DeferredOperationQueue queue) {
         final List<Credential> credentials = getCredentialsFromFirebaseUser(currentUser);
-        final CredentialsClient client = GoogleApiUtils.getCredentialsClient(context);
 
         // Ensure the order in which tasks are executed properly destructures the user.
-        return signOutIdps(context).continueWithTask(new Continuation<Void, Task<Void>>() {
+        return idpSignOut.continueWithTask(BackgroundExecutor.get(), new Continuation<Void, Task<Void>>() {
             @Override
             public Task<Void> then(@NonNull Task<Void> task) {
                 task.getResult(); // Propagate exception if there was one
 
-                List<Task<?>> credentialTasks = new ArrayList<>();
+                // A lack of stored credential doesn't mean deleting the user failed, the
+                // credentials are deleted in the background. Network failures are retried a
+                // few times, other failures leave the credential behind.
                 for (Credential credential : credentials) {
-                    credentialTasks.add(client.delete(credential));
+                    queue.deleteCredential(credential);
                 }
-                return Tasks.whenAll(credentialTasks)
-                        .continueWith(new Continuation<Void, Void>() {
-                            @Override
-                            public Void then(@NonNull Task<Void> task) {
-                                Exception e = task.getException();
-                                Throwable t = e == null ? null : e.getCause();
-                                if (!(t instanceof ApiException) || ((ApiException) t).getStatusCode() != CommonStatusCodes.CANCELED) {
-                                    // Only propagate the exception if it isn't an invalid account
-                                    // one. This can occur if we failed to save the credential or it
-                                    // was deleted elsewhere. However, a lack of stored credential
-                                    // doesn't mean fully deleting the user failed.
-                                    return task.getResult();
-                                }
-
-                                return null;
-                            }
-                        });
-            }
-        }).continueWithTask(new Continuation<Void, Task<Void>>() {
-            @Override
-            public Task<Void> then(@NonNull Task<Void> task) {
-                task.getResult(); // Propagate exception if there was one
                 return currentUser.delete();
             }
         });
@@ -313,12 +390,34 @@ public final class AuthUI {
         if (ProviderAvailability.IS_FACEBOOK_AVAILABLE) {
             LoginManager.getInstance().logOut();
         }
-        if (ProviderAvailability.IS_TWITTER_AVAILABLE) {
-            TwitterSignInHandler.initializeTwitter();
-            TwitterCore.getInstance().getSessionManager().clearActiveSession();
+
+        Task<Void> googleSignOut =
+                GoogleSignIn.getClient(context, GoogleSignInOptions.DEFAULT_SIGN_IN).signOut();
+        if (!ProviderAvailability.IS_TWITTER_AVAILABLE) {
+            return googleSignOut;
         }
 
-        return GoogleSignIn.getClient(context, GoogleSignInOptions.DEFAULT_SIGN_IN).signOut();
+        Task<Void> twitterSignOut = TwitterSignInHandler.initializeTwitter(context)
+                .continueWith(BackgroundExecutor.get(), task -> {
+                    task.getResult(); // Propagate exceptions
+                    TwitterCore.getInstance().getSessionManager().clearActiveSession();
+                    return null;
+                });
+        return Tasks.whenAll(googleSignOut, twitterSignOut);
+    }
+
+    /**
+     * Set the timeouts and retry behaviour used by the network calls of the sign-in flow.
+     *
+     * @see NetworkPolicy
+     */
+    public void setNetworkPolicy(@NonNull NetworkPolicy policy) {
+        mNetworkPolicy = Preconditions.checkNotNull(policy, "policy cannot be null");
+    }
+
+    @NonNull
+    public NetworkPolicy getNetworkPolicy() {
+        return mNetworkPolicy;
     }
 
     /**
@@ -338,6 +437,14 @@ public final class AuthUI {
     @Retention(RetentionPolicy.SOURCE)
     public @interface SupportedProvider {}
 
+    /**
+     * Receives the stages of sign-in flows as they complete. Called on the main thread, so
+     * implementations should hand spans off to their own exporter rather than doing I/O here.
+     */
+    public interface MetricsListener {
+        void onSpan(@NonNull SignInSpan span);
+    }
+
     /**
      * Configuration for an identity provider.
      */
@@ -619,6 +726,8 @@ public final class AuthUI {
         String mPrivacyPolicyUrl;
 
         boolean mEnableCredentials = true;
+        boolean mSingleActivityFlow = false;
+        boolean mBackgroundCredentialSave = false;
 
         @NonNull
         public T setTosAndPrivacyPolicyUrls(@NonNull String tosUrl, @NonNull String privacyPolicyUrl) {
@@ -668,6 +777,33 @@ public final class AuthUI {
             return (T) this;
         }
 
+        /**
+         * Runs the whole sign-in flow inside a single activity instead of going through the
+         * invisible trampoline and credential saving activities.
+         * <p>Disabled by default.
+         *
+         * @param enabled enables the single activity flow
+         */
+        @NonNull
+        public T setIsSingleActivityFlowEnabled(boolean enabled) {
+            mSingleActivityFlow = enabled;
+            return (T) this;
+        }
+
+        /**
+         * Saves Smart Lock credentials from a background worker once the user is signed in,
+         * instead of a dedicated screen. The sign-in result is delivered as soon as the save
+         * settles and a confirmation screen is only shown if the save requires one.
+         * <p>Disabled by default.
+         *
+         * @param enabled enables background credential saving
+         */
+        @NonNull
+        public T setIsBackgroundCredentialSaveEnabled(boolean enabled) {
+            mBackgroundCredentialSave = enabled;
+            return (T) this;
+        }
+
         @CallSuper
         @NonNull
         public Intent build() {
@@ -676,7 +812,15 @@ public final class AuthUI {
                 mProviders.add(new IdentityProviderConfig.EmailBuilder().build());
             }
 
-            return MainSignInActivity.Companion.createIntent(mApp.getApplicationContext(), getFlowParams());
+            FlowParameters params = getFlowParams();
+            Intent intent;
+            if (params.singleActivityFlow) {
+                intent = AuthMethodPickerActivity.Companion.createIntent(mApp.getApplicationContext(), params);
+            } else {
+                intent = MainSignInActivity.Companion.createIntent(mApp.getApplicationContext(), params);
+            }
+            // The app may hold on to this intent for longer than our process lives
+            return HelperActivityBase.withFullFlowParams(intent, params);
         }
 
         protected abstract FlowParameters getFlowParams();
@@ -698,7 +842,41 @@ public final class AuthUI {
                     mProviders,
                     mTosUrl,
                     mPrivacyPolicyUrl,
-                    mEnableCredentials);
+                    mEnableCredentials,
+                    mSingleActivityFlow,
+                    mBackgroundCredentialSave);
+        }
+    }
+
+    /**
+     * Creates the instance of an app on first use and removes it from {@link #INSTANCES} when the
+     * app is deleted, so the app's {@link FirebaseAuth} isn't kept alive.
+     */
+    private static final class InstanceHolder implements FirebaseAppLifecycleListener {
+        private final FirebaseApp mApp;
+        private volatile AuthUI mInstance;
+
+        InstanceHolder(FirebaseApp app) {
+            mApp = app;
+        }
+
+        AuthUI get() {
+            AuthUI instance = mInstance;
+            if (instance == null) {
+                synchronized (this) {
+                    instance = mInstance;
+                    if (instance == null) {
+                        instance = new AuthUI(mApp);
+                        mInstance = instance;
+                    }
+                }
+            }
+            return instance;
+        }
+
+        @Override
+        public void onDeleted(String firebaseAppName, FirebaseOptions options) {
+            INSTANCES.remove(mApp, this);
         }
     }
 }
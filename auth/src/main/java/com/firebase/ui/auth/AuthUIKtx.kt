@@ -0,0 +1,65 @@
+@file:JvmName("AuthUIKtx")
+
+package com.firebase.ui.auth
+
+import android.content.Context
+import androidx.lifecycle.Observer
+import androidx.lifecycle.viewModelScope
+import com.firebase.ui.auth.data.model.Resource
+import com.firebase.ui.auth.viewmodel.OperableViewModel
+import com.google.firebase.auth.AuthResult
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.tasks.await
+
+/**
+ * Suspending version of [AuthUI.silentSignIn]. Safe to call from the main thread: the work runs on
+ * the [AuthUI.setBackgroundExecutor] and the caller resumes on its own dispatcher.
+ */
+suspend fun AuthUI.awaitSilentSignIn(
+        context: Context,
+        configs: List<AuthUI.IdentityProviderConfig>
+): AuthResult = silentSignIn(context, configs).await()
+
+/**
+ * Suspending version of [AuthUI.signOut]. Safe to call from the main thread: the work runs on the
+ * [AuthUI.setBackgroundExecutor] and the caller resumes on its own dispatcher.
+ */
+suspend fun AuthUI.awaitSignOut(context: Context) {
+    signOut(context).await()
+}
+
+/**
+ * Suspending version of [AuthUI.delete]. Safe to call from the main thread: the work runs on the
+ * [AuthUI.setBackgroundExecutor] and the caller resumes on its own dispatcher.
+ */
+suspend fun AuthUI.awaitDelete(context: Context) {
+    delete(context).await()
+}
+
+/**
+ * Observe the sign-in operation of a handler, such as the picker's
+ * [com.firebase.ui.auth.data.remote.MainSignInHandler], as a [Flow].
+ *
+ * The flow starts with the current state and completes when the handler is cleared so collectors
+ * don't outlive it. Collecting it doesn't consume results meant for the UI handling them.
+ */
+@UseExperimental(ExperimentalCoroutinesApi::class)
+fun OperableViewModel<*, Resource<IdentityProviderResponse>>.signInStates(): Flow<SignInState> =
+        callbackFlow {
+            val observer = Observer<Resource<IdentityProviderResponse>> { resource ->
+                if (resource != null) offer(SignInState.of(resource))
+            }
+            val handle = viewModelScope.coroutineContext[Job]?.invokeOnCompletion { close() }
+
+            states.observeForever(observer)
+            awaitClose {
+                handle?.dispose()
+                states.removeObserver(observer)
+            }
+        }.flowOn(Dispatchers.Main.immediate)
@@ -18,12 +18,12 @@ import android.content.Intent;
 import android.os.*;
 import android.text.TextUtils;
 
+import com.firebase.ui.auth.data.model.CompactCodec;
+import com.firebase.ui.auth.data.model.ErrorEnvelope;
 import com.firebase.ui.auth.data.model.User;
 import com.firebase.ui.auth.util.ExtraConstants;
 import com.google.firebase.auth.*;
 
-import java.io.*;
-
 import androidx.annotation.*;
 
 /**
@@ -33,14 +33,8 @@ public class IdentityProviderResponse implements Parcelable {
     public static final Creator<IdentityProviderResponse> CREATOR = new Creator<IdentityProviderResponse>() {
         @Override
         public IdentityProviderResponse createFromParcel(Parcel in) {
-            return new IdentityProviderResponse(
-                    in.readParcelable(User.class.getClassLoader()),
-                    in.readString(), // token
-                    in.readString(), // secret
-                    in.readInt() == 1,
-                    (FirebaseUiException) in.readSerializable(),
-                    in.readParcelable(AuthCredential.class.getClassLoader())
-            );
+            return fromBytes(in.createByteArray(),
+                    in.<AuthCredential>readParcelable(AuthCredential.class.getClassLoader()));
         }
 
         @Override
@@ -49,6 +43,12 @@ public class IdentityProviderResponse implements Parcelable {
         }
     };
 
+    private static final int HAS_USER = 1;
+    private static final int HAS_TOKEN = 1 << 1;
+    private static final int HAS_SECRET = 1 << 2;
+    private static final int IS_NEW_USER = 1 << 3;
+    private static final int HAS_ERROR = 1 << 4;
+
     private final User mUser;
     private final AuthCredential mPendingCredential;
 
@@ -115,6 +115,28 @@ public class IdentityProviderResponse implements Parcelable {
         }
     }
 
+    /**
+     * Decode a response written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if the data is malformed or from an unknown version
+     */
+    @NonNull
+    public static IdentityProviderResponse fromBytes(@NonNull byte[] data) {
+        return fromBytes(data, null);
+    }
+
+    private static IdentityProviderResponse fromBytes(byte[] data, AuthCredential credential) {
+        CompactCodec.Reader reader = new CompactCodec.Reader(data);
+        int fields = reader.readByte();
+        return new IdentityProviderResponse(
+                (fields & HAS_USER) == 0 ? null : User.readFrom(reader),
+                (fields & HAS_TOKEN) == 0 ? null : reader.readString(),
+                (fields & HAS_SECRET) == 0 ? null : reader.readString(),
+                (fields & IS_NEW_USER) != 0,
+                (fields & HAS_ERROR) == 0 ? null : ErrorEnvelope.readFrom(reader).toException(),
+                credential);
+    }
+
     @NonNull
     public static Intent getErrorIntent(@NonNull Exception e) {
         return from(e).toIntent();
@@ -212,37 +234,28 @@ public class IdentityProviderResponse implements Parcelable {
         return 0;
     }
 
+    /**
+     * Encode the response with the {@link CompactCodec}. The credential for linking is not
+     * included since only Firebase Auth knows how to write it.
+     */
+    @NonNull
+    public byte[] toBytes() {
+        CompactCodec.Writer writer = new CompactCodec.Writer();
+        writer.writeByte((mUser == null ? 0 : HAS_USER)
+                | (mToken == null ? 0 : HAS_TOKEN)
+                | (mSecret == null ? 0 : HAS_SECRET)
+                | (mIsNewUser ? IS_NEW_USER : 0)
+                | (mException == null ? 0 : HAS_ERROR));
+        if (mUser != null) { mUser.writeTo(writer); }
+        if (mToken != null) { writer.writeString(mToken); }
+        if (mSecret != null) { writer.writeString(mSecret); }
+        if (mException != null) { ErrorEnvelope.from(mException).writeTo(writer); }
+        return writer.toByteArray();
+    }
+
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeParcelable(mUser, flags);
-        dest.writeString(mToken);
-        dest.writeString(mSecret);
-        dest.writeInt(mIsNewUser ? 1 : 0);
-
-        ObjectOutputStream oos = null;
-        try {
-            oos = new ObjectOutputStream(new ByteArrayOutputStream());
-            oos.writeObject(mException);
-
-            // Success! The entire exception tree is serializable.
-            dest.writeSerializable(mException);
-        } catch (IOException e) {
-            // Somewhere down the line, the exception is holding on to an object that isn't
-            // serializable so default to some exception. It's the best we can do in this case.
-            FirebaseUiException fake = new FirebaseUiException(ErrorCodes.UNKNOWN_ERROR,
-                    "Exception serialization error, forced wrapping. " +
-                            "Original: " + mException +
-                            ", original cause: " + mException.getCause());
-            fake.setStackTrace(mException.getStackTrace());
-            dest.writeSerializable(fake);
-        } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException ignored) { }
-            }
-        }
-
+        dest.writeByteArray(toBytes());
         dest.writeParcelable(mPendingCredential, 0);
     }
 
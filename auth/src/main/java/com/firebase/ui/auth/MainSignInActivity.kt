@@ -9,6 +9,8 @@ import com.firebase.ui.auth.data.model.FlowParameters
 import com.firebase.ui.auth.data.model.UserCancellationException
 import com.firebase.ui.auth.data.remote.MainSignInHandler
 import com.firebase.ui.auth.ui.InvisibleActivityBase
+import com.firebase.ui.auth.util.data.SignInTracer
+import com.firebase.ui.auth.util.ui.LayoutPreInflater
 import com.firebase.ui.auth.viewmodel.ResourceObserver
 import com.google.android.gms.common.GoogleApiAvailability
 import com.google.android.gms.tasks.OnSuccessListener
@@ -19,9 +21,19 @@ import com.firebase.ui.auth.ui.HelperActivityBase
 
 class MainSignInActivity : InvisibleActivityBase() {
     private lateinit var mHandler: MainSignInHandler
+    private var mFlowSpan: SignInTracer.Span? = null
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        if (savedInstanceState == null) {
+            mFlowSpan = SignInTracer.getInstance().startFlow()
+            // The picker is the most likely next screen, get its views ready while we wait on
+            // Play Services and Smart Lock
+            LayoutPreInflater.getInstance().preInflate(this, R.style.FirebaseUI,
+                    R.layout.fui_auth_method_picker_layout,
+                    R.layout.fui_sign_in_layout,
+                    R.layout.fui_sign_up_layout)
+        }
         mHandler = ViewModelProviders.of(this).get(MainSignInHandler::class.java)
         mHandler.init(flowParams)
 
@@ -39,8 +51,8 @@ class MainSignInActivity : InvisibleActivityBase() {
             }
         })
 
-        GoogleApiAvailability.getInstance()
-                .makeGooglePlayServicesAvailable(this)
+        SignInTracer.getInstance().trace(SignInSpan.PLAY_SERVICES_CHECK,
+                GoogleApiAvailability.getInstance().makeGooglePlayServicesAvailable(this))
                 .addOnSuccessListener(this, OnSuccessListener {
                     if (savedInstanceState != null) {
                         return@OnSuccessListener
@@ -53,6 +65,21 @@ class MainSignInActivity : InvisibleActivityBase() {
                 }
     }
 
+    override fun finish(resultCode: Int, intent: Intent?) {
+        mFlowSpan?.end(when {
+            resultCode == Activity.RESULT_OK -> SignInSpan.OUTCOME_SUCCESS
+            intent == null -> SignInSpan.OUTCOME_CANCELLED
+            else -> SignInSpan.OUTCOME_FAILURE
+        })
+        super.finish(resultCode, intent)
+    }
+
+    override fun onDestroy() {
+        super.onDestroy()
+        // The flow is over, e.g. Smart Lock signed the user in before the picker could show up
+        if (isFinishing) LayoutPreInflater.getInstance().clear()
+    }
+
     override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
         super.onActivityResult(requestCode, resultCode, data)
 
@@ -0,0 +1,202 @@
+package com.firebase.ui.auth;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.*;
+
+/**
+ * Deadlines and retry behaviour for the network calls made during sign-in.
+ * <p>
+ * Operations that are safe to repeat get a timeout and are retried on transient errors (no
+ * connectivity, timeouts, unavailable services) with exponential backoff and jitter. Account
+ * creation and linking are never timed out and not retried by default since the first attempt may
+ * have succeeded on the server.
+ *
+ * @see AuthUI#setNetworkPolicy(NetworkPolicy)
+ */
+public final class NetworkPolicy {
+    /** Looking up the sign-in methods of an email. */
+    public static final String FETCH_SIGN_IN_METHODS = "fetch_sign_in_methods";
+    /** Signing in with a credential or email and password. */
+    public static final String SIGN_IN = "sign_in";
+    /** Creating a new email and password account. */
+    public static final String CREATE_USER = "create_user";
+    /** Linking a credential to the current user. */
+    public static final String LINK = "link";
+    /** Updating the user's name and photo. */
+    public static final String UPDATE_PROFILE = "update_profile";
+    /** Requesting saved credentials from Smart Lock. */
+    public static final String CREDENTIALS_REQUEST = "credentials_request";
+    /** Saving credentials to Smart Lock. */
+    public static final String CREDENTIALS_SAVE = "credentials_save";
+
+    /** Policy used when none has been set. */
+    public static final NetworkPolicy DEFAULT = new Builder().build();
+
+    private final Map<String, Long> mTimeouts;
+    private final Map<String, Integer> mMaxRetries;
+    private final long mDefaultTimeoutMillis;
+    private final int mDefaultMaxRetries;
+    private final long mInitialBackoffMillis;
+    private final long mMaxBackoffMillis;
+    private final double mJitter;
+
+    private NetworkPolicy(Builder builder) {
+        mTimeouts = new HashMap<>(builder.mTimeouts);
+        mMaxRetries = new HashMap<>(builder.mMaxRetries);
+        mDefaultTimeoutMillis = builder.mDefaultTimeoutMillis;
+        mDefaultMaxRetries = builder.mDefaultMaxRetries;
+        mInitialBackoffMillis = builder.mInitialBackoffMillis;
+        mMaxBackoffMillis = builder.mMaxBackoffMillis;
+        mJitter = builder.mJitter;
+    }
+
+    /**
+     * Get the time after which a single attempt of the operation is abandoned.
+     */
+    public long getTimeoutMillis(@Operation String operation) {
+        Long timeout = mTimeouts.get(operation);
+        return timeout == null ? mDefaultTimeoutMillis : timeout;
+    }
+
+    /**
+     * Get the number of times the operation is retried after a retryable failure.
+     */
+    public int getMaxRetries(@Operation String operation) {
+        Integer retries = mMaxRetries.get(operation);
+        return retries == null ? mDefaultMaxRetries : retries;
+    }
+
+    /**
+     * Get the delay before the given retry (starting at 0), before any jitter is applied.
+     */
+    public long getBackoffMillis(int retry) {
+        long backoff = mInitialBackoffMillis;
+        for (int i = 0; i < retry && backoff < mMaxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, mMaxBackoffMillis);
+    }
+
+    /**
+     * Get the fraction of the backoff that is randomized, between 0 and 1.
+     */
+    public double getJitter() {
+        return mJitter;
+    }
+
+    /**
+     * Operations whose timeout and retries can be configured.
+     */
+    @StringDef({
+            FETCH_SIGN_IN_METHODS,
+            SIGN_IN,
+            CREATE_USER,
+            LINK,
+            UPDATE_PROFILE,
+            CREDENTIALS_REQUEST,
+            CREDENTIALS_SAVE
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Operation {}
+
+    /**
+     * Builder for {@link NetworkPolicy}.
+     */
+    public static final class Builder {
+        private final Map<String, Long> mTimeouts = new HashMap<>();
+        private final Map<String, Integer> mMaxRetries = new HashMap<>();
+        private long mDefaultTimeoutMillis = 15_000;
+        private int mDefaultMaxRetries = 2;
+        private long mInitialBackoffMillis = 500;
+        private long mMaxBackoffMillis = 4_000;
+        private double mJitter = 0.5;
+
+        public Builder() {
+            mMaxRetries.put(CREATE_USER, 0);
+            mMaxRetries.put(LINK, 0);
+        }
+
+        /**
+         * Set the timeout used for operations without a specific one. Defaults to 15 seconds.
+         */
+        @NonNull
+        public Builder setDefaultTimeout(long millis) {
+            mDefaultTimeoutMillis = checkPositive(millis);
+            return this;
+        }
+
+        /**
+         * Set the timeout of a single attempt of the given operation. Ignored for
+         * {@link #CREATE_USER} and {@link #LINK}.
+         */
+        @NonNull
+        public Builder setTimeout(@Operation @NonNull String operation, long millis) {
+            mTimeouts.put(operation, checkPositive(millis));
+            return this;
+        }
+
+        /**
+         * Set the number of retries used for operations without a specific one. Defaults to 2.
+         */
+        @NonNull
+        public Builder setDefaultMaxRetries(int retries) {
+            mDefaultMaxRetries = checkNotNegative(retries);
+            return this;
+        }
+
+        /**
+         * Set the number of retries of the given operation.
+         */
+        @NonNull
+        public Builder setMaxRetries(@Operation @NonNull String operation, int retries) {
+            mMaxRetries.put(operation, checkNotNegative(retries));
+            return this;
+        }
+
+        /**
+         * Set the delay before the first retry and the maximum delay it may double up to.
+         * Defaults to 500ms and 4s.
+         */
+        @NonNull
+        public Builder setBackoff(long initialMillis, long maxMillis) {
+            if (maxMillis < initialMillis) {
+                throw new IllegalArgumentException("maxMillis must be at least initialMillis");
+            }
+            mInitialBackoffMillis = checkPositive(initialMillis);
+            mMaxBackoffMillis = maxMillis;
+            return this;
+        }
+
+        /**
+         * Set the fraction of each backoff delay that is randomized, between 0 and 1. Defaults
+         * to 0.5.
+         */
+        @NonNull
+        public Builder setJitter(@FloatRange(from = 0, to = 1) double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            mJitter = jitter;
+            return this;
+        }
+
+        @NonNull
+        public NetworkPolicy build() {
+            return new NetworkPolicy(this);
+        }
+
+        private static long checkPositive(long value) {
+            if (value <= 0) { throw new IllegalArgumentException("Value must be positive"); }
+            return value;
+        }
+
+        private static int checkNotNegative(int value) {
+            if (value < 0) { throw new IllegalArgumentException("Value cannot be negative"); }
+            return value;
+        }
+    }
+}
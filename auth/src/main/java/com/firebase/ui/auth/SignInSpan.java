@@ -0,0 +1,117 @@
+package com.firebase.ui.auth;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import androidx.annotation.*;
+
+/**
+ * A timed stage of a sign-in flow, reported to an {@link AuthUI.MetricsListener}.
+ * <p>
+ * Timestamps come from {@link System#nanoTime()}. They are only meaningful relative to each
+ * other, for example to compute a duration or to compare stages of the same flow.
+ */
+public final class SignInSpan {
+    /** The whole flow, from launching the sign-in intent until a result is returned. */
+    public static final String FLOW = "flow";
+    /** Checking that Play Services is available and up to date. */
+    public static final String PLAY_SERVICES_CHECK = "play_services_check";
+    /** Looking up which providers an email has signed in with. */
+    public static final String PROVIDER_LOOKUP = "provider_lookup";
+    /** Requesting saved credentials from Smart Lock. */
+    public static final String CREDENTIAL_REQUEST = "credential_request";
+    /** Creating the provider picker until it is shown. */
+    public static final String PICKER_DISPLAY = "picker_display";
+    /** Getting a credential from a provider SDK (Google, Facebook, Twitter). */
+    public static final String PROVIDER_SDK = "provider_sdk";
+    /** Signing in to Firebase with a credential, or creating an account. */
+    public static final String FIREBASE_SIGN_IN = "firebase_sign_in";
+    /** Merging the provider's profile into the Firebase user. */
+    public static final String PROFILE_MERGE = "profile_merge";
+    /** Linking a credential to an existing account. */
+    public static final String LINK = "link";
+    /** Saving the credential to Smart Lock. */
+    public static final String SMART_LOCK_SAVE = "smart_lock_save";
+
+    public static final int OUTCOME_SUCCESS = 0;
+    public static final int OUTCOME_FAILURE = 1;
+    public static final int OUTCOME_CANCELLED = 2;
+
+    private final long mTraceId;
+    private final String mStage;
+    private final long mStartNanos;
+    private final long mEndNanos;
+    private final int mOutcome;
+
+    public SignInSpan(long traceId,
+                      @NonNull @Stage String stage,
+                      long startNanos,
+                      long endNanos,
+                      @Outcome int outcome) {
+        mTraceId = traceId;
+        mStage = stage;
+        mStartNanos = startNanos;
+        mEndNanos = endNanos;
+        mOutcome = outcome;
+    }
+
+    /**
+     * Get the id shared by all spans of the same sign-in flow.
+     */
+    public long getTraceId() {
+        return mTraceId;
+    }
+
+    @NonNull
+    @Stage
+    public String getStage() {
+        return mStage;
+    }
+
+    public long getStartNanos() {
+        return mStartNanos;
+    }
+
+    public long getEndNanos() {
+        return mEndNanos;
+    }
+
+    public long getDurationNanos() {
+        return mEndNanos - mStartNanos;
+    }
+
+    @Outcome
+    public int getOutcome() {
+        return mOutcome;
+    }
+
+    @Override
+    public String toString() {
+        return "SignInSpan{" +
+                "mTraceId=" + mTraceId +
+                ", mStage='" + mStage + '\'' +
+                ", mStartNanos=" + mStartNanos +
+                ", mEndNanos=" + mEndNanos +
+                ", mOutcome=" + mOutcome +
+                '}';
+    }
+
+    @StringDef({
+            FLOW,
+            PLAY_SERVICES_CHECK,
+            PROVIDER_LOOKUP,
+            CREDENTIAL_REQUEST,
+            PICKER_DISPLAY,
+            PROVIDER_SDK,
+            FIREBASE_SIGN_IN,
+            PROFILE_MERGE,
+            LINK,
+            SMART_LOCK_SAVE
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Stage {}
+
+    @IntDef({OUTCOME_SUCCESS, OUTCOME_FAILURE, OUTCOME_CANCELLED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Outcome {}
+}
@@ -0,0 +1,28 @@
+package com.firebase.ui.auth
+
+import com.firebase.ui.auth.data.model.Resource
+import com.firebase.ui.auth.data.model.State
+
+/**
+ * State of a sign-in operation, as emitted by [signInStates].
+ */
+sealed class SignInState {
+    /** The operation is running, a progress indicator should be shown. */
+    object Loading : SignInState()
+
+    data class Success(val response: IdentityProviderResponse) : SignInState()
+
+    /**
+     * The operation failed, or needs an activity to be started in the case of
+     * [com.firebase.ui.auth.data.model.IntentRequiredException].
+     */
+    data class Failure(val exception: Exception) : SignInState()
+
+    internal companion object {
+        fun of(resource: Resource<IdentityProviderResponse>): SignInState = when (resource.state) {
+            State.LOADING -> Loading
+            State.SUCCESS -> Success(resource.value!!)
+            State.FAILURE -> Failure(resource.exception!!)
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.firebase.ui.auth;
+
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.*;
+
+/**
+ * A snapshot of the latencies of successful sign-in stages, split by provider.
+ * <p>
+ * Latencies are aggregated since the process started. The stages recorded are
+ * {@link SignInSpan#PROVIDER_LOOKUP}, {@link SignInSpan#FIREBASE_SIGN_IN},
+ * {@link SignInSpan#LINK} and {@link SignInSpan#FLOW}, the total time to signed in.
+ *
+ * @see AuthUI#getStatsSnapshot()
+ */
+public final class SignInStats {
+    private final List<Latency> mLatencies;
+
+    public SignInStats(@NonNull List<Latency> latencies) {
+        mLatencies = Collections.unmodifiableList(latencies);
+    }
+
+    /**
+     * Get the latencies of every stage and provider that has been recorded at least once.
+     */
+    @NonNull
+    public List<Latency> getLatencies() {
+        return mLatencies;
+    }
+
+    /**
+     * Get the latency of a stage for the given provider, or {@code null} if none were recorded.
+     *
+     * @param providerId the provider, or {@code null} for stages where it isn't known
+     */
+    @Nullable
+    public Latency getLatency(@SignInSpan.Stage @NonNull String stage,
+                              @Nullable String providerId) {
+        for (Latency latency : mLatencies) {
+            if (latency.mStage.equals(stage) && equals(latency.mProviderId, providerId)) {
+                return latency;
+            }
+        }
+        return null;
+    }
+
+    private static boolean equals(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        return "SignInStats{" +
+                "mLatencies=" + mLatencies +
+                '}';
+    }
+
+    /**
+     * Latency distribution of one stage for one provider. Percentiles are accurate to within
+     * 25%.
+     */
+    public static final class Latency {
+        private final String mStage;
+        private final String mProviderId;
+        private final long mCount;
+        private final long mMeanMicros;
+        private final long mMaxMicros;
+        private final long[] mBuckets;
+        private final long[] mUpperBounds;
+
+        public Latency(@NonNull String stage,
+                       @Nullable String providerId,
+                       long count,
+                       long meanMicros,
+                       long maxMicros,
+                       @NonNull long[] buckets,
+                       @NonNull long[] upperBounds) {
+            mStage = stage;
+            mProviderId = providerId;
+            mCount = count;
+            mMeanMicros = meanMicros;
+            mMaxMicros = maxMicros;
+            mBuckets = buckets;
+            mUpperBounds = upperBounds;
+        }
+
+        @NonNull
+        @SignInSpan.Stage
+        public String getStage() {
+            return mStage;
+        }
+
+        /**
+         * Get the provider the latencies were recorded for, or {@code null} if it isn't known.
+         */
+        @Nullable
+        public String getProviderId() {
+            return mProviderId;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getMeanMicros() {
+            return mMeanMicros;
+        }
+
+        public long getMaxMicros() {
+            return mMaxMicros;
+        }
+
+        /**
+         * Get the latency that the given fraction of recorded values is at or below.
+         */
+        public long getPercentileMicros(@FloatRange(from = 0, to = 1) double percentile) {
+            if (mCount == 0) { return 0; }
+
+            long rank = Math.max((long) Math.ceil(percentile * mCount), 1);
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank) { return mUpperBounds[i]; }
+            }
+            return mMaxMicros;
+        }
+
+        public long getP50Micros() {
+            return getPercentileMicros(0.50);
+        }
+
+        public long getP95Micros() {
+            return getPercentileMicros(0.95);
+        }
+
+        public long getP99Micros() {
+            return getPercentileMicros(0.99);
+        }
+
+        @Override
+        public String toString() {
+            return "Latency{" +
+                    "mStage='" + mStage + '\'' +
+                    ", mProviderId='" + mProviderId + '\'' +
+                    ", mCount=" + mCount +
+                    ", p50=" + getP50Micros() +
+                    ", p95=" + getP95Micros() +
+                    ", p99=" + getP99Micros() +
+                    ", mMaxMicros=" + mMaxMicros +
+                    '}';
+        }
+    }
+}
@@ -8,6 +8,7 @@ import android.database.Cursor;
 import android.net.Uri;
 
 import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.data.remote.DeferredOperationQueue;
 import com.firebase.ui.auth.util.Preconditions;
 
 import androidx.annotation.RestrictTo;
@@ -27,6 +28,8 @@ public class AuthUiInitProvider extends ContentProvider {
     @Override
     public boolean onCreate() {
         AuthUI.setApplicationContext(getContext());
+        // Follow-ups left over from a previous run of the app, read and run in the background
+        DeferredOperationQueue.getInstance(getContext()).drain();
         return false;
     }
 
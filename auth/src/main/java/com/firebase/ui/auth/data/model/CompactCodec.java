@@ -0,0 +1,172 @@
+package com.firebase.ui.auth.data.model;
+
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.FacebookAuthProvider;
+import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.TwitterAuthProvider;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import androidx.annotation.*;
+
+/**
+ * A small binary format for the models that are sent between screens or persisted: lengths and
+ * numbers are varints, strings are UTF-8 and well known provider ids are written as one byte.
+ * <p>
+ * Every encoded value starts with {@link #VERSION}. Readers reject data written by a newer
+ * version so persisted values can fall back to another source instead of being misread.
+ */
+public final class CompactCodec {
+    public static final int VERSION = 1;
+
+    /**
+     * Provider ids written as their index + 1, 0 being followed by the id itself. Only ever
+     * append to this list: existing indices are part of the format.
+     */
+    private static final String[] PROVIDER_IDS = {
+            EmailAuthProvider.PROVIDER_ID,
+            GoogleAuthProvider.PROVIDER_ID,
+            FacebookAuthProvider.PROVIDER_ID,
+            TwitterAuthProvider.PROVIDER_ID
+    };
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private CompactCodec() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    public static final class Writer {
+        private byte[] mBuffer = new byte[64];
+        private int mSize;
+
+        public Writer() {
+            writeVarint(VERSION);
+        }
+
+        @NonNull
+        public Writer writeByte(int value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = (byte) value;
+            return this;
+        }
+
+        /**
+         * Write a non-negative int in 1 to 5 bytes, 7 bits at a time.
+         */
+        @NonNull
+        public Writer writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+            return this;
+        }
+
+        @NonNull
+        public Writer writeFixedInt(int value) {
+            ensureCapacity(4);
+            mBuffer[mSize++] = (byte) (value >>> 24);
+            mBuffer[mSize++] = (byte) (value >>> 16);
+            mBuffer[mSize++] = (byte) (value >>> 8);
+            mBuffer[mSize++] = (byte) value;
+            return this;
+        }
+
+        @NonNull
+        public Writer writeString(@NonNull String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+            return this;
+        }
+
+        @NonNull
+        public Writer writeProviderId(@NonNull String providerId) {
+            for (int i = 0; i < PROVIDER_IDS.length; i++) {
+                if (PROVIDER_IDS[i].equals(providerId)) { return writeVarint(i + 1); }
+            }
+            return writeVarint(0).writeString(providerId);
+        }
+
+        @NonNull
+        public byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (mSize + extra > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + extra));
+            }
+        }
+    }
+
+    public static final class Reader {
+        private final byte[] mData;
+        private int mPosition;
+
+        /**
+         * @throws IllegalArgumentException if the data was written by an unknown version
+         */
+        public Reader(@NonNull byte[] data) {
+            mData = data;
+            int version = readVarint();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported version: " + version);
+            }
+        }
+
+        public int readByte() {
+            require(1);
+            return mData[mPosition++] & 0xFF;
+        }
+
+        public int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) { return value; }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        public int readFixedInt() {
+            require(4);
+            return (mData[mPosition++] & 0xFF) << 24
+                    | (mData[mPosition++] & 0xFF) << 16
+                    | (mData[mPosition++] & 0xFF) << 8
+                    | (mData[mPosition++] & 0xFF);
+        }
+
+        @NonNull
+        public String readString() {
+            int length = readVarint();
+            require(length);
+            String value = new String(mData, mPosition, length, UTF_8);
+            mPosition += length;
+            return value;
+        }
+
+        @NonNull
+        public String readProviderId() {
+            int index = readVarint();
+            if (index == 0) { return readString(); }
+            if (index > PROVIDER_IDS.length) {
+                throw new IllegalArgumentException("Unknown provider index: " + index);
+            }
+            return PROVIDER_IDS[index - 1];
+        }
+
+        private void require(int length) {
+            if (length < 0 || mPosition + length > mData.length) {
+                throw new IllegalArgumentException("Truncated data");
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.firebase.ui.auth.data.model;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.firebase.ui.auth.FirebaseUiException;
+
+import androidx.annotation.*;
+
+/**
+ * The parts of a {@link FirebaseUiException} that are worth sending across processes: its error
+ * code and message, a short summary of its causes and a hash of where it was thrown.
+ * <p>
+ * Exceptions used to be sent with Java serialization, which drags along every cause and stack
+ * trace and fails outright when one of them isn't serializable.
+ */
+public final class ErrorEnvelope implements Parcelable {
+    public static final Creator<ErrorEnvelope> CREATOR = new Creator<ErrorEnvelope>() {
+        @Override
+        public ErrorEnvelope createFromParcel(Parcel in) {
+            return new ErrorEnvelope(
+                    in.readInt(),
+                    in.readInt(),
+                    in.readString(),
+                    in.readString(),
+                    in.readInt());
+        }
+
+        @Override
+        public ErrorEnvelope[] newArray(int size) {
+            return new ErrorEnvelope[size];
+        }
+    };
+
+    private static final int KIND_ERROR = 0;
+    private static final int KIND_USER_CANCELLATION = 1;
+
+    @VisibleForTesting static final int MAX_CAUSES = 3;
+    @VisibleForTesting static final int MAX_CAUSE_LENGTH = 256;
+    private static final int HASHED_FRAMES = 8;
+
+    private static final int HAS_MESSAGE = 1;
+    private static final int HAS_CAUSES = 1 << 1;
+
+    private final int mKind;
+    private final int mErrorCode;
+    private final String mMessage;
+    private final String mCauses;
+    private final int mStackHash;
+
+    private ErrorEnvelope(int kind,
+                          int errorCode,
+                          @Nullable String message,
+                          @Nullable String causes,
+                          int stackHash) {
+        mKind = kind;
+        mErrorCode = errorCode;
+        mMessage = message;
+        mCauses = causes;
+        mStackHash = stackHash;
+    }
+
+    @NonNull
+    public static ErrorEnvelope from(@NonNull FirebaseUiException e) {
+        return new ErrorEnvelope(
+                e instanceof UserCancellationException ? KIND_USER_CANCELLATION : KIND_ERROR,
+                e.getErrorCode(),
+                e.getMessage(),
+                summarizeCauses(e),
+                hashStack(e));
+    }
+
+    /**
+     * Rebuild an exception with the same type, code and message as the original one. Its cause,
+     * if any, only carries the summary of the original causes and has no stack trace.
+     */
+    @NonNull
+    public FirebaseUiException toException() {
+        if (mKind == KIND_USER_CANCELLATION) {
+            return new UserCancellationException();
+        }
+
+        String message = mMessage == null ? "" : mMessage;
+        FirebaseUiException e;
+        if (mCauses == null) {
+            e = new FirebaseUiException(mErrorCode, message);
+        } else {
+            Exception cause = new Exception(mCauses + " [stack " + Integer.toHexString(mStackHash) + "]");
+            cause.setStackTrace(new StackTraceElement[0]);
+            e = new FirebaseUiException(mErrorCode, message, cause);
+        }
+        // The stack trace would otherwise point at the code that unparceled us
+        e.setStackTrace(new StackTraceElement[0]);
+        return e;
+    }
+
+    public int getErrorCode() {
+        return mErrorCode;
+    }
+
+    @Nullable
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * Get the class and message of the first few causes, or {@code null} if there were none.
+     */
+    @Nullable
+    public String getCauses() {
+        return mCauses;
+    }
+
+    /**
+     * Get a hash of the top of the original stack trace, useful to group identical errors.
+     */
+    public int getStackHash() {
+        return mStackHash;
+    }
+
+    @Nullable
+    private static String summarizeCauses(@NonNull Throwable e) {
+        StringBuilder summary = new StringBuilder();
+        Throwable cause = e.getCause();
+        for (int i = 0; cause != null && cause != e && i < MAX_CAUSES; i++) {
+            if (summary.length() > 0) { summary.append(" <- "); }
+            summary.append(cause.getClass().getName());
+            if (cause.getMessage() != null) { summary.append(": ").append(cause.getMessage()); }
+
+            e = cause;
+            cause = cause.getCause();
+        }
+
+        if (summary.length() == 0) { return null; }
+        if (summary.length() > MAX_CAUSE_LENGTH) { summary.setLength(MAX_CAUSE_LENGTH); }
+        return summary.toString();
+    }
+
+    private static int hashStack(@NonNull Throwable e) {
+        // Hash where the root cause was thrown since the wrapping exceptions are usually ours
+        Throwable root = e;
+        for (int i = 0; root.getCause() != null && root.getCause() != root && i < MAX_CAUSES; i++) {
+            root = root.getCause();
+        }
+
+        StackTraceElement[] trace = root.getStackTrace();
+        int hash = root.getClass().getName().hashCode();
+        for (int i = 0; i < Math.min(trace.length, HASHED_FRAMES); i++) {
+            hash = 31 * hash + trace[i].hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Write the envelope with the {@link CompactCodec}.
+     */
+    public void writeTo(@NonNull CompactCodec.Writer writer) {
+        writer.writeVarint(mKind);
+        writer.writeVarint(mErrorCode);
+        writer.writeByte((mMessage == null ? 0 : HAS_MESSAGE) | (mCauses == null ? 0 : HAS_CAUSES));
+        if (mMessage != null) { writer.writeString(mMessage); }
+        if (mCauses != null) { writer.writeString(mCauses); }
+        writer.writeFixedInt(mStackHash);
+    }
+
+    @NonNull
+    public static ErrorEnvelope readFrom(@NonNull CompactCodec.Reader reader) {
+        int kind = reader.readVarint();
+        int errorCode = reader.readVarint();
+        int fields = reader.readByte();
+        return new ErrorEnvelope(
+                kind,
+                errorCode,
+                (fields & HAS_MESSAGE) == 0 ? null : reader.readString(),
+                (fields & HAS_CAUSES) == 0 ? null : reader.readString(),
+                reader.readFixedInt());
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mKind);
+        dest.writeInt(mErrorCode);
+        dest.writeString(mMessage);
+        dest.writeString(mCauses);
+        dest.writeInt(mStackHash);
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorEnvelope{" +
+                "mKind=" + mKind +
+                ", mErrorCode=" + mErrorCode +
+                ", mMessage='" + mMessage + '\'' +
+                ", mCauses='" + mCauses + '\'' +
+                ", mStackHash=" + mStackHash +
+                '}';
+    }
+}
@@ -39,13 +39,17 @@ public class FlowParameters implements Parcelable {
             String termsOfServiceUrl = in.readString();
             String privacyPolicyUrl = in.readString();
             boolean enableCredentials = in.readInt() != 0;
+            boolean singleActivityFlow = in.readInt() != 0;
+            boolean backgroundCredentialSave = in.readInt() != 0;
 
             return new FlowParameters(
                     appName,
                     providerInfo,
                     termsOfServiceUrl,
                     privacyPolicyUrl,
-                    enableCredentials);
+                    enableCredentials,
+                    singleActivityFlow,
+                    backgroundCredentialSave);
         }
 
         @Override
@@ -68,12 +72,53 @@ public class FlowParameters implements Parcelable {
 
     public final boolean enableCredentials;
 
+    /**
+     * Whether the whole flow (credential hints, provider choice and credential saving) should run
+     * inside the provider picker instead of hopping through dedicated activities.
+     */
+    public final boolean singleActivityFlow;
+
+    /**
+     * Whether credentials should be saved in the background after the sign-in result has been
+     * delivered, instead of from a dedicated activity.
+     */
+    public final boolean backgroundCredentialSave;
+
     public FlowParameters(
             @NonNull String appName,
             @NonNull List<IdentityProviderConfig> providers,
             @Nullable String termsOfServiceUrl,
             @Nullable String privacyPolicyUrl,
             boolean enableCredentials
+    ) {
+        this(appName, providers, termsOfServiceUrl, privacyPolicyUrl, enableCredentials, false);
+    }
+
+    public FlowParameters(
+            @NonNull String appName,
+            @NonNull List<IdentityProviderConfig> providers,
+            @Nullable String termsOfServiceUrl,
+            @Nullable String privacyPolicyUrl,
+            boolean enableCredentials,
+            boolean singleActivityFlow
+    ) {
+        this(appName,
+                providers,
+                termsOfServiceUrl,
+                privacyPolicyUrl,
+                enableCredentials,
+                singleActivityFlow,
+                false);
+    }
+
+    public FlowParameters(
+            @NonNull String appName,
+            @NonNull List<IdentityProviderConfig> providers,
+            @Nullable String termsOfServiceUrl,
+            @Nullable String privacyPolicyUrl,
+            boolean enableCredentials,
+            boolean singleActivityFlow,
+            boolean backgroundCredentialSave
     ) {
         this.appName = Preconditions.checkNotNull(appName, "appName cannot be null");
         this.providers = Collections.unmodifiableList(
@@ -81,13 +126,21 @@ public class FlowParameters implements Parcelable {
         this.termsOfServiceUrl = termsOfServiceUrl;
         this.privacyPolicyUrl = privacyPolicyUrl;
         this.enableCredentials = enableCredentials;
+        this.singleActivityFlow = singleActivityFlow;
+        this.backgroundCredentialSave = backgroundCredentialSave;
     }
 
     /**
-     * Extract FlowParameters from an Intent.
+     * Extract FlowParameters from an Intent, preferring the instance shared through the
+     * {@link FlowParametersRegistry} over a parceled copy.
      */
     public static FlowParameters fromIntent(Intent intent) {
-        return intent.getParcelableExtra(ExtraConstants.FLOW_PARAMS);
+        long token = intent.getLongExtra(ExtraConstants.FLOW_PARAMS_TOKEN, 0);
+        FlowParameters params = token == 0 ? null : FlowParametersRegistry.get(token);
+        if (params == null) {
+            params = intent.getParcelableExtra(ExtraConstants.FLOW_PARAMS);
+        }
+        return params;
     }
 
     @Override
@@ -97,6 +150,8 @@ public class FlowParameters implements Parcelable {
         dest.writeString(termsOfServiceUrl);
         dest.writeString(privacyPolicyUrl);
         dest.writeInt(enableCredentials ? 1 : 0);
+        dest.writeInt(singleActivityFlow ? 1 : 0);
+        dest.writeInt(backgroundCredentialSave ? 1 : 0);
     }
 
     @Override
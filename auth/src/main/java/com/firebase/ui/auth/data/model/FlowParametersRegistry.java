@@ -0,0 +1,86 @@
+package com.firebase.ui.auth.data.model;
+
+import java.lang.ref.WeakReference;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import androidx.annotation.*;
+
+/**
+ * Process-local registry of the {@link FlowParameters} of running flows, so activities of the
+ * same flow can share one instance through a token instead of each unparceling their own copy.
+ * <p>
+ * Parameters are only weakly held. Every activity of a flow keeps its parameters from creation
+ * on, so they stay registered while any screen of the flow is alive and go away with the flow.
+ * <p>
+ * Tokens carry a random per-process salt in their high bits. A token that outlived its process
+ * (in a restored back stack for example) can therefore never resolve to another flow's
+ * parameters, callers fall back to a parceled copy instead.
+ */
+public final class FlowParametersRegistry {
+    private static final long SALT = (long) nonZero(new SecureRandom().nextInt()) << 32;
+
+    private static final Map<Long, WeakReference<FlowParameters>> PARAMS = new HashMap<>();
+    /** FlowParameters doesn't override equals, so this is keyed by identity. */
+    private static final Map<FlowParameters, Long> TOKENS = new WeakHashMap<>();
+
+    private static int sCounter;
+
+    private FlowParametersRegistry() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    /**
+     * Get the token of the given parameters, registering them if needed.
+     */
+    public static long register(@NonNull FlowParameters params) {
+        synchronized (PARAMS) {
+            Long token = TOKENS.get(params);
+            if (token == null) {
+                removeCleared();
+                token = SALT | (++sCounter & 0xFFFFFFFFL);
+                put(token, params);
+            }
+            return token;
+        }
+    }
+
+    /**
+     * Register parameters recovered after process death under their original token, so the rest
+     * of the restored flow resolves to the same instance.
+     */
+    public static void restore(long token, @NonNull FlowParameters params) {
+        synchronized (PARAMS) {
+            if (get(token) == null) {
+                put(token, params);
+            }
+        }
+    }
+
+    @Nullable
+    public static FlowParameters get(long token) {
+        synchronized (PARAMS) {
+            WeakReference<FlowParameters> params = PARAMS.get(token);
+            return params == null ? null : params.get();
+        }
+    }
+
+    private static void put(long token, FlowParameters params) {
+        PARAMS.put(token, new WeakReference<>(params));
+        TOKENS.put(params, token);
+    }
+
+    private static void removeCleared() {
+        Iterator<WeakReference<FlowParameters>> iterator = PARAMS.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) { iterator.remove(); }
+        }
+    }
+
+    private static int nonZero(int salt) {
+        return salt == 0 ? 1 : salt;
+    }
+}
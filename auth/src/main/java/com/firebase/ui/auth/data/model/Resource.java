@@ -12,6 +12,8 @@ import androidx.annotation.RestrictTo;
  * these states.
  */
 public final class Resource<T> {
+    private static final Resource<?> LOADING = new Resource<>(State.LOADING, null, null);
+
     private final State mState;
     private final T mValue;
     private final Exception mException;
@@ -41,11 +43,13 @@ public final class Resource<T> {
     }
 
     /**
-     * Creates a resource in the loading state, without a value or an exception.
+     * Gets the resource in the loading state, without a value or an exception. The same instance
+     * is shared by every caller.
      */
     @NonNull
+    @SuppressWarnings("unchecked")
     public static <T> Resource<T> forLoading() {
-        return new Resource<>(State.LOADING, null, null);
+        return (Resource<T>) LOADING;
     }
 
     @NonNull
@@ -55,20 +59,30 @@ public final class Resource<T> {
 
     @Nullable
     public final Exception getException() {
-        mIsUsed = true;
+        markUsed();
         return mException;
     }
 
     @Nullable
     public T getValue() {
-        mIsUsed = true;
+        markUsed();
         return mValue;
     }
 
+    /**
+     * @deprecated operations are delivered once by {@link
+     * com.firebase.ui.auth.viewmodel.OperationChannel} which doesn't need this flag.
+     */
+    @Deprecated
     public boolean isUsed() {
         return mIsUsed;
     }
 
+    private void markUsed() {
+        // The shared loading instance must stay immutable
+        if (mState != State.LOADING) { mIsUsed = true; }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -18,12 +18,7 @@ public class User implements Parcelable {
     public static final Parcelable.Creator<User> CREATOR = new Parcelable.Creator<User>() {
         @Override
         public User createFromParcel(Parcel in) {
-            return new User(
-                    in.readString(),
-                    in.readString(),
-                    in.readString(),
-                    in.readString(),
-                    in.<Uri>readParcelable(Uri.class.getClassLoader()));
+            return readFrom(new CompactCodec.Reader(in.createByteArray()));
         }
 
         @Override
@@ -32,6 +27,11 @@ public class User implements Parcelable {
         }
     };
 
+    private static final int HAS_EMAIL = 1;
+    private static final int HAS_PHONE_NUMBER = 1 << 1;
+    private static final int HAS_NAME = 1 << 2;
+    private static final int HAS_PHOTO_URI = 1 << 3;
+
     private final String mProviderId;
     private final String mEmail;
     private final String mPhoneNumber;
@@ -122,11 +122,37 @@ public class User implements Parcelable {
 
     @Override
     public void writeToParcel(@NonNull Parcel dest, int flags) {
-        dest.writeString(mProviderId);
-        dest.writeString(mEmail);
-        dest.writeString(mPhoneNumber);
-        dest.writeString(mName);
-        dest.writeParcelable(mPhotoUri, flags);
+        CompactCodec.Writer writer = new CompactCodec.Writer();
+        writeTo(writer);
+        dest.writeByteArray(writer.toByteArray());
+    }
+
+    /**
+     * Write the user with the {@link CompactCodec}: the provider id, a bitmask of the optional
+     * fields that are set, then those fields.
+     */
+    public void writeTo(@NonNull CompactCodec.Writer writer) {
+        writer.writeProviderId(mProviderId);
+        writer.writeByte((mEmail == null ? 0 : HAS_EMAIL)
+                | (mPhoneNumber == null ? 0 : HAS_PHONE_NUMBER)
+                | (mName == null ? 0 : HAS_NAME)
+                | (mPhotoUri == null ? 0 : HAS_PHOTO_URI));
+        if (mEmail != null) { writer.writeString(mEmail); }
+        if (mPhoneNumber != null) { writer.writeString(mPhoneNumber); }
+        if (mName != null) { writer.writeString(mName); }
+        if (mPhotoUri != null) { writer.writeString(mPhotoUri.toString()); }
+    }
+
+    @NonNull
+    public static User readFrom(@NonNull CompactCodec.Reader reader) {
+        String providerId = reader.readProviderId();
+        int fields = reader.readByte();
+        return new User(
+                providerId,
+                (fields & HAS_EMAIL) == 0 ? null : reader.readString(),
+                (fields & HAS_PHONE_NUMBER) == 0 ? null : reader.readString(),
+                (fields & HAS_NAME) == 0 ? null : reader.readString(),
+                (fields & HAS_PHOTO_URI) == 0 ? null : Uri.parse(reader.readString()));
     }
 
 
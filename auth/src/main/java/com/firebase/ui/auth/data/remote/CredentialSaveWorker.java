@@ -0,0 +1,110 @@
+package com.firebase.ui.auth.data.remote;
+
+import android.content.*;
+import android.util.Log;
+
+import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.SignInSpan;
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.ui.credentials.CredentialSaveActivity;
+import com.firebase.ui.auth.util.*;
+import com.firebase.ui.auth.util.data.NetworkTasks;
+import com.firebase.ui.auth.util.data.ProviderUtils;
+import com.firebase.ui.auth.util.data.SignInTracer;
+import com.google.android.gms.auth.api.credentials.*;
+import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.tasks.*;
+import com.google.firebase.auth.*;
+
+import androidx.annotation.*;
+
+/**
+ * Saves credentials to SmartLock from a process-wide worker instead of {@link
+ * CredentialSaveActivity}. The activity of the flow waits on the returned task and only starts
+ * {@link CredentialSaveActivity} if the save actually needs the user to confirm it.
+ */
+public final class CredentialSaveWorker {
+    private static final String TAG = "CredentialSaveWorker";
+
+    private static CredentialSaveWorker sInstance;
+
+    @Nullable private CredentialsClient mCredentialsClient;
+
+    private CredentialSaveWorker() {}
+
+    @NonNull
+    public static synchronized CredentialSaveWorker getInstance() {
+        if (sInstance == null) {
+            sInstance = new CredentialSaveWorker();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Save the credential for the given user in the background.
+     *
+     * @return the save, failing with a {@link ResolvableApiException} if the user needs to
+     * confirm it
+     */
+    @NonNull
+    public Task<Void> save(@NonNull Context context,
+                           @NonNull FlowParameters params,
+                           @NonNull FirebaseUser user,
+                           @NonNull IdentityProviderResponse response,
+                           @Nullable String password) {
+        CredentialsClient client = mCredentialsClient == null
+                ? GoogleApiUtils.getCredentialsClient(context.getApplicationContext())
+                : mCredentialsClient;
+        return save(context,
+                client,
+                NetworkTasks.getPolicy(params.appName),
+                params,
+                user,
+                response,
+                password);
+    }
+
+    @VisibleForTesting
+    void setCredentialsClient(@Nullable CredentialsClient client) {
+        mCredentialsClient = client;
+    }
+
+    @VisibleForTesting
+    @NonNull
+    Task<Void> save(@NonNull Context context,
+                    @NonNull final CredentialsClient client,
+                    @NonNull NetworkPolicy policy,
+                    @NonNull FlowParameters params,
+                    @NonNull FirebaseUser user,
+                    @NonNull IdentityProviderResponse response,
+                    @Nullable String password) {
+        if (!params.enableCredentials) { return Tasks.forResult(null); }
+
+        String accountType = ProviderUtils.idpResponseToAccountType(response);
+        final Credential credential = CredentialUtils.buildCredential(user, password, accountType);
+        if (credential == null) {
+            Log.w(TAG, "Failed to build credential.");
+            return Tasks.forResult(null);
+        }
+
+        if (GoogleAuthProvider.PROVIDER_ID.equals(response.getProviderType())) {
+            // Since Google accounts upgrade email ones, we don't want to end up
+            // with duplicate credentials so delete the email ones.
+            String type = ProviderUtils.providerIdToAccountType(GoogleAuthProvider.PROVIDER_ID);
+            DeferredOperationQueue.getInstance(context)
+                    .deleteCredential(CredentialUtils.buildCredentialOrThrow(user, "pass", type));
+        }
+
+        return SignInTracer.getInstance().trace(SignInSpan.SMART_LOCK_SAVE,
+                NetworkTasks.run(policy, NetworkPolicy.CREDENTIALS_SAVE, () -> client.save(credential)))
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(@NonNull Exception e) {
+                        if (!(e instanceof ResolvableApiException)) {
+                            Log.w(TAG, "Non-resolvable exception: " + e);
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,555 @@
+package com.firebase.ui.auth.data.remote;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.firebase.ui.auth.util.GoogleApiUtils;
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
+import com.firebase.ui.auth.util.data.NetworkMonitor;
+import com.firebase.ui.auth.util.data.NetworkTasks;
+import com.google.android.gms.auth.api.credentials.Credential;
+import com.google.android.gms.auth.api.credentials.CredentialsClient;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.UserProfileChangeRequest;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.*;
+
+/**
+ * Runs the follow-ups of a sign-in that nothing waits on, like deleting outdated Smart Lock
+ * credentials or filling in the user's profile, in the background.
+ * <p>
+ * Operations are kept in an append-only file so they survive the process. Each one has a key, a
+ * newer operation with the same key replaces the older one and finished operations are marked
+ * with a tombstone record. The file is rewritten with only the pending operations once
+ * tombstones make up most of it.
+ * <p>
+ * Pending operations are run together, when enqueued, at the next app start and when the device
+ * gets back online. Operations failing with a retryable error are tried again up to
+ * {@link #MAX_ATTEMPTS} times.
+ */
+public final class DeferredOperationQueue {
+    private static final String TAG = "DeferredOperations";
+    private static final String FILE_NAME = "com.firebase.ui.auth.deferred_operations";
+
+    @VisibleForTesting
+    static final int MAX_ATTEMPTS = 5;
+    private static final int MIN_COMPACTION_RECORDS = 16;
+
+    private static final byte TYPE_DONE = 0;
+    private static final byte TYPE_DELETE_CREDENTIAL = 1;
+    private static final byte TYPE_UPDATE_PROFILE = 2;
+
+    /** Smart Lock only tells email credentials apart by them having a password. */
+    private static final String PLACEHOLDER_PASSWORD = "pass";
+
+    @SuppressLint("StaticFieldLeak") // Application context
+    private static DeferredOperationQueue sInstance;
+
+    private final Context mContext;
+    private final File mFile;
+    @Nullable private final CredentialsClient mCredentialsClient;
+
+    private final Map<String, Operation> mOperations = new LinkedHashMap<>();
+    private boolean mLoaded;
+    private int mRecords;
+    private boolean mDraining;
+    private boolean mDrainAgain;
+    private boolean mWaitingForNetwork;
+
+    @VisibleForTesting
+    DeferredOperationQueue(@NonNull Context context,
+                           @NonNull File file,
+                           @Nullable CredentialsClient credentialsClient) {
+        mContext = context.getApplicationContext();
+        mFile = file;
+        mCredentialsClient = credentialsClient;
+    }
+
+    @NonNull
+    public static synchronized DeferredOperationQueue getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            sInstance = new DeferredOperationQueue(
+                    appContext, new File(appContext.getFilesDir(), FILE_NAME), null);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Delete a credential from Smart Lock. Only its id and account type are kept, never its
+     * password.
+     */
+    public void deleteCredential(@NonNull Credential credential) {
+        enqueue(new CredentialDeletion(credential.getId(),
+                !TextUtils.isEmpty(credential.getPassword()),
+                credential.getAccountType(),
+                0));
+    }
+
+    /**
+     * Set the name and photo of a user, if they're still signed in when the update runs.
+     */
+    public void updateProfile(@NonNull String uid,
+                              @Nullable String displayName,
+                              @Nullable Uri photoUri) {
+        enqueue(new ProfileUpdate(uid,
+                displayName,
+                photoUri == null ? null : photoUri.toString(),
+                0));
+    }
+
+    /**
+     * Run the pending operations in the background, or once back online.
+     */
+    public void drain() {
+        BackgroundExecutor.get().execute(new Runnable() {
+            @Override
+            public void run() {
+                drainNow();
+            }
+        });
+    }
+
+    private void enqueue(final Operation operation) {
+        BackgroundExecutor.get().execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DeferredOperationQueue.this) {
+                    load();
+                    append(operation);
+                    // Picked up with the next batch
+                    if (mDraining) { mDrainAgain = true; }
+                }
+                drainNow();
+            }
+        });
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        load();
+        return mOperations.size();
+    }
+
+    private void drainNow() {
+        final List<Operation> batch;
+        synchronized (this) {
+            load();
+            if (mDraining || mOperations.isEmpty()) { return; }
+
+            NetworkMonitor monitor = NetworkMonitor.getInstance(mContext);
+            if (!monitor.isOnline()) {
+                if (!mWaitingForNetwork) {
+                    mWaitingForNetwork = true;
+                    monitor.runWhenOnline(new Runnable() {
+                        @Override
+                        public void run() {
+                            synchronized (DeferredOperationQueue.this) {
+                                mWaitingForNetwork = false;
+                            }
+                            drainNow();
+                        }
+                    });
+                }
+                return;
+            }
+
+            mDraining = true;
+            batch = new ArrayList<>(mOperations.values());
+        }
+
+        final List<Task<?>> tasks = new ArrayList<>(batch.size());
+        for (Operation operation : batch) {
+            Task<?> task;
+            try {
+                task = operation.run(this);
+            } catch (RuntimeException e) {
+                task = Tasks.forException(e);
+            }
+            tasks.add(task);
+        }
+
+        Tasks.whenAllComplete(tasks).addOnCompleteListener(BackgroundExecutor.get(),
+                new OnCompleteListener<List<Task<?>>>() {
+                    @Override
+                    public void onComplete(@NonNull Task<List<Task<?>>> task) {
+                        onBatchComplete(batch, tasks);
+                    }
+                });
+    }
+
+    private synchronized void onBatchComplete(List<Operation> batch, List<Task<?>> tasks) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Operation operation = batch.get(i);
+            // Replaced while running, the newer one takes over
+            if (mOperations.get(operation.mKey) != operation) { continue; }
+
+            Exception e = tasks.get(i).getException();
+            if (e != null) {
+                // The key has the credential id, i.e. the user's email
+                Log.w(TAG, "Deferred operation of type " + operation.getType() + " failed", e);
+            }
+            if (e == null
+                    || !NetworkTasks.isRetryable(e)
+                    || operation.mAttempts + 1 >= MAX_ATTEMPTS) {
+                records.add(Record.done(operation.mKey));
+            } else {
+                records.add(Record.of(operation.retry()));
+            }
+        }
+        append(records);
+        mDraining = false;
+
+        // Retryable failures are usually the network going away, try again once it's back
+        boolean offline = !NetworkMonitor.getInstance(mContext).isOnline();
+        if (mDrainAgain || offline && !mOperations.isEmpty()) {
+            mDrainAgain = false;
+            drain();
+        }
+    }
+
+    private void append(Operation operation) {
+        List<Record> records = new ArrayList<>(1);
+        records.add(Record.of(operation));
+        append(records);
+    }
+
+    /**
+     * Apply the records and write them to the file in one go.
+     */
+    private void append(List<Record> records) {
+        if (records.isEmpty()) { return; }
+
+        for (Record record : records) {
+            apply(record);
+        }
+        mRecords += records.size();
+
+        if (mRecords >= MIN_COMPACTION_RECORDS && mRecords > 2 * mOperations.size()) {
+            compact();
+        } else {
+            write(records, true);
+        }
+    }
+
+    private void apply(Record record) {
+        // Moved to the end to keep the order in which they were last enqueued
+        mOperations.remove(record.mKey);
+        if (record.mOperation != null) { mOperations.put(record.mKey, record.mOperation); }
+    }
+
+    private void compact() {
+        List<Record> records = new ArrayList<>(mOperations.size());
+        for (Operation operation : mOperations.values()) {
+            records.add(Record.of(operation));
+        }
+
+        File temp = new File(mFile.getPath() + ".tmp");
+        if (write(temp, records, false) && temp.renameTo(mFile)) {
+            mRecords = mOperations.size();
+        } else {
+            Log.w(TAG, "Could not compact " + mFile);
+        }
+    }
+
+    private boolean write(List<Record> records, boolean append) {
+        return write(mFile, records, append);
+    }
+
+    private static boolean write(File file, List<Record> records, boolean append) {
+        // A single write, so a dying process at worst leaves one truncated batch behind
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (Record record : records) {
+                Operation operation = record.mOperation;
+                out.writeByte(operation == null ? TYPE_DONE : operation.getType());
+                out.writeUTF(record.mKey);
+                out.writeInt(operation == null ? 0 : operation.mAttempts);
+                if (operation != null) { operation.write(out); }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        FileOutputStream stream = null;
+        try {
+            stream = new FileOutputStream(file, append);
+            stream.write(bytes.toByteArray());
+            stream.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write " + file, e);
+            return false;
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+    private void load() {
+        if (mLoaded) { return; }
+        mLoaded = true;
+
+        DataInputStream in = null;
+        boolean truncated = false;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(read(type, in));
+                mRecords++;
+            }
+        } catch (FileNotFoundException e) {
+            return;
+        } catch (IOException | IllegalStateException e) {
+            // The process died while writing, keep what was complete
+            Log.w(TAG, "Dropping the end of " + mFile, e);
+            truncated = true;
+        } finally {
+            closeQuietly(in);
+        }
+
+        // Later records would be appended after the garbage otherwise
+        if (truncated) { compact(); }
+    }
+
+    private static Record read(byte type, DataInput in) throws IOException {
+        String key = in.readUTF();
+        int attempts = in.readInt();
+        switch (type) {
+            case TYPE_DONE:
+                return Record.done(key);
+            case TYPE_DELETE_CREDENTIAL:
+                return Record.of(new CredentialDeletion(in.readUTF(),
+                        in.readBoolean(),
+                        readNullableUTF(in),
+                        attempts));
+            case TYPE_UPDATE_PROFILE:
+                return Record.of(new ProfileUpdate(in.readUTF(),
+                        readNullableUTF(in),
+                        readNullableUTF(in),
+                        attempts));
+            default:
+                throw new IllegalStateException("Unknown record type: " + type);
+        }
+    }
+
+    /**
+     * Same rules as {@link ProfileMerger}, against the profile as it is when the update runs: the
+     * app or the user may have set a name or photo since it was queued.
+     *
+     * @return the fields that are still empty, or {@code null} if there are none to fill
+     */
+    @VisibleForTesting
+    @Nullable
+    static UserProfileChangeRequest getProfileRequest(@NonNull FirebaseUser user,
+                                                      @Nullable String displayName,
+                                                      @Nullable String photoUri) {
+        UserProfileChangeRequest.Builder request = new UserProfileChangeRequest.Builder();
+        boolean changed = false;
+        if (TextUtils.isEmpty(user.getDisplayName()) && !TextUtils.isEmpty(displayName)) {
+            request.setDisplayName(displayName);
+            changed = true;
+        }
+        if (user.getPhotoUrl() == null && photoUri != null) {
+            request.setPhotoUri(Uri.parse(photoUri));
+            changed = true;
+        }
+        return changed ? request.build() : null;
+    }
+
+    private static void writeNullableUTF(DataOutput out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) { out.writeUTF(value); }
+    }
+
+    @Nullable
+    private static String readNullableUTF(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) { return; }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with it
+        }
+    }
+
+    private abstract static class Operation {
+        final String mKey;
+        final int mAttempts;
+
+        Operation(String key, int attempts) {
+            mKey = key;
+            mAttempts = attempts;
+        }
+
+        abstract byte getType();
+
+        abstract void write(DataOutput out) throws IOException;
+
+        abstract Task<?> run(DeferredOperationQueue queue);
+
+        /**
+         * @return the same operation, counting one more failed attempt
+         */
+        abstract Operation retry();
+    }
+
+    /**
+     * An entry of the file: an operation to run, or a tombstone without one marking the operation
+     * with the same key as finished.
+     */
+    private static final class Record {
+        final String mKey;
+        @Nullable final Operation mOperation;
+
+        private Record(String key, @Nullable Operation operation) {
+            mKey = key;
+            mOperation = operation;
+        }
+
+        static Record of(Operation operation) {
+            return new Record(operation.mKey, operation);
+        }
+
+        static Record done(String key) {
+            return new Record(key, null);
+        }
+    }
+
+    private static final class CredentialDeletion extends Operation {
+        private final String mId;
+        private final boolean mHasPassword;
+        @Nullable private final String mAccountType;
+
+        CredentialDeletion(String id,
+                           boolean hasPassword,
+                           @Nullable String accountType,
+                           int attempts) {
+            super("credential:" + id + ":" + (hasPassword ? "password" : accountType), attempts);
+            mId = id;
+            mHasPassword = hasPassword;
+            mAccountType = accountType;
+        }
+
+        @Override
+        byte getType() {
+            return TYPE_DELETE_CREDENTIAL;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeUTF(mId);
+            out.writeBoolean(mHasPassword);
+            writeNullableUTF(out, mAccountType);
+        }
+
+        @Override
+        Task<?> run(DeferredOperationQueue queue) {
+            Credential.Builder builder = new Credential.Builder(mId);
+            if (mHasPassword) {
+                builder.setPassword(PLACEHOLDER_PASSWORD);
+            } else {
+                builder.setAccountType(mAccountType);
+            }
+
+            CredentialsClient client = queue.mCredentialsClient == null
+                    ? GoogleApiUtils.getCredentialsClient(queue.mContext)
+                    : queue.mCredentialsClient;
+            return client.delete(builder.build());
+        }
+
+        @Override
+        Operation retry() {
+            return new CredentialDeletion(mId, mHasPassword, mAccountType, mAttempts + 1);
+        }
+    }
+
+    private static final class ProfileUpdate extends Operation {
+        private final String mUid;
+        @Nullable private final String mDisplayName;
+        @Nullable private final String mPhotoUri;
+
+        ProfileUpdate(String uid,
+                      @Nullable String displayName,
+                      @Nullable String photoUri,
+                      int attempts) {
+            super("profile:" + uid, attempts);
+            mUid = uid;
+            mDisplayName = displayName;
+            mPhotoUri = photoUri;
+        }
+
+        @Override
+        byte getType() {
+            return TYPE_UPDATE_PROFILE;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeUTF(mUid);
+            writeNullableUTF(out, mDisplayName);
+            writeNullableUTF(out, mPhotoUri);
+        }
+
+        @Override
+        Task<?> run(DeferredOperationQueue queue) {
+            FirebaseUser user = findUser(queue.mContext);
+            // Signed out since, the profile isn't ours to change anymore
+            if (user == null) { return Tasks.forResult(null); }
+
+            UserProfileChangeRequest request = getProfileRequest(user, mDisplayName, mPhotoUri);
+            return request == null ? Tasks.<Void>forResult(null) : user.updateProfile(request);
+        }
+
+        @Override
+        Operation retry() {
+            return new ProfileUpdate(mUid, mDisplayName, mPhotoUri, mAttempts + 1);
+        }
+
+        @Nullable
+        private FirebaseUser findUser(Context context) {
+            for (FirebaseApp app : FirebaseApp.getApps(context)) {
+                FirebaseUser user = FirebaseAuth.getInstance(app).getCurrentUser();
+                if (user != null && mUid.equals(user.getUid())) { return user; }
+            }
+            return null;
+        }
+    }
+}
@@ -55,6 +55,14 @@ public class GoogleSignInHandler extends ProviderSignInBase<GoogleSignInHandler.
         mEmail = params.email;
     }
 
+    /**
+     * Preselect {@code email} the next time sign-in is started, e.g. once we know which account the
+     * user already has. {@link #init} only applies the first arguments it receives.
+     */
+    public void setEmail(@Nullable String email) {
+        mEmail = email;
+    }
+
     @Override
     public void startSignIn(@NonNull HelperActivityBase activity) {
         start();
@@ -7,6 +7,8 @@ import android.os.Parcelable
 import android.text.TextUtils
 import com.firebase.ui.auth.AuthUI.SupportedProvider
 import com.firebase.ui.auth.IdentityProviderResponse
+import com.firebase.ui.auth.NetworkPolicy
+import com.firebase.ui.auth.SignInSpan
 import com.firebase.ui.auth.data.model.IntentRequiredException
 import com.firebase.ui.auth.data.model.PendingIntentRequiredException
 import com.firebase.ui.auth.data.model.Resource
@@ -14,7 +16,8 @@ import com.firebase.ui.auth.data.model.User
 import com.firebase.ui.auth.data.model.UserCancellationException
 import com.firebase.ui.auth.ui.idp.AuthMethodPickerActivity
 import com.firebase.ui.auth.ui.idp.SingleSignInActivity
-import com.firebase.ui.auth.util.GoogleApiUtils
+import com.firebase.ui.auth.util.data.NetworkTasks
+import com.firebase.ui.auth.util.data.SignInTracer
 import com.firebase.ui.auth.util.data.ProviderUtils
 import com.firebase.ui.auth.viewmodel.RequestCodes
 import com.firebase.ui.auth.viewmodel.SignInViewModelBase
@@ -53,12 +56,14 @@ class MainSignInHandler(application: Application) : SignInViewModelBase(applicat
         if (arguments.enableCredentials && willRequestCredentials) {
             setResult(Resource.forLoading())
 
-            GoogleApiUtils.getCredentialsClient(getApplication())
-                    .request(
-                            CredentialRequest.Builder()
-                                    .setPasswordLoginSupported(true)
-                                    .setAccountTypes(*accounts.toTypedArray())
-                                    .build())
+            val request = CredentialRequest.Builder()
+                    .setPasswordLoginSupported(true)
+                    .setAccountTypes(*accounts.toTypedArray())
+                    .build()
+            SignInTracer.getInstance().trace(SignInSpan.CREDENTIAL_REQUEST,
+                    NetworkTasks.run(networkPolicy, NetworkPolicy.CREDENTIALS_REQUEST) {
+                        credentialsClient.request(request)
+                    })
                     .addOnCompleteListener { task ->
                         try {
                             handleCredential(task.getResult(ApiException::class.java)!!.credential)
@@ -70,6 +75,9 @@ class MainSignInHandler(application: Application) : SignInViewModelBase(applicat
                             }
                         } catch (e: ApiException) {
                             startAuthMethodChoice()
+                        } catch (e: Exception) {
+                            // Timed out or failed in a way the Credentials API doesn't report
+                            startAuthMethodChoice()
                         }
                     }
         } else {
@@ -116,15 +124,22 @@ class MainSignInHandler(application: Application) : SignInViewModelBase(applicat
                     User.Builder(EmailAuthProvider.PROVIDER_ID, id).build()).build()
 
             setResult(Resource.forLoading())
-            auth.signInWithEmailAndPassword(id, password!!)
+            SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                    EmailAuthProvider.PROVIDER_ID,
+                    NetworkTasks.run(networkPolicy, NetworkPolicy.SIGN_IN) {
+                        auth.signInWithEmailAndPassword(id, password!!)
+                    })
                     .addOnSuccessListener { result -> handleSuccess(response, result) }
                     .addOnFailureListener { e ->
+                        if (cancellationToken.isCancellationRequested) {
+                            return@addOnFailureListener
+                        }
                         if (e is FirebaseAuthInvalidUserException || e is FirebaseAuthInvalidCredentialsException) {
                             // In this case the credential saved in SmartLock was not
                             // a valid credential, we should delete it from SmartLock
                             // before continuing.
-                            GoogleApiUtils.getCredentialsClient(getApplication())
-                                    .delete(credential)
+                            DeferredOperationQueue.getInstance(getApplication())
+                                    .deleteCredential(credential)
                         }
                         startAuthMethodChoice()
                     }
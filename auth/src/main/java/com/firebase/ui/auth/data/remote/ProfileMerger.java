@@ -3,9 +3,17 @@ package com.firebase.ui.auth.data.remote;
 import android.net.Uri;
 import android.text.TextUtils;
 
+import com.firebase.ui.auth.AuthUI;
 import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.SignInSpan;
 import com.firebase.ui.auth.data.model.User;
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
+import com.firebase.ui.auth.util.data.NetworkMonitor;
+import com.firebase.ui.auth.util.data.NetworkTasks;
+import com.firebase.ui.auth.util.data.SignInTracer;
 import com.firebase.ui.auth.util.data.TaskFailureLogger;
+import com.google.android.gms.tasks.CancellationToken;
 import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
@@ -24,15 +32,38 @@ public class ProfileMerger implements Continuation<AuthResult, Task<AuthResult>>
     private static final String TAG = "ProfileMerger";
 
     private final IdentityProviderResponse mResponse;
+    private final NetworkPolicy mNetworkPolicy;
+    @Nullable private final CancellationToken mCancellationToken;
 
     public ProfileMerger(IdentityProviderResponse response) {
+        this(response, null);
+    }
+
+    public ProfileMerger(IdentityProviderResponse response,
+                         @Nullable CancellationToken cancellationToken) {
+        this(response, NetworkPolicy.DEFAULT, cancellationToken);
+    }
+
+    /**
+     * @param cancellationToken if cancelled, the profile won't be updated and the resulting task
+     *                          will be cancelled
+     */
+    public ProfileMerger(IdentityProviderResponse response,
+                         @NonNull NetworkPolicy networkPolicy,
+                         @Nullable CancellationToken cancellationToken) {
         mResponse = response;
+        mNetworkPolicy = networkPolicy;
+        mCancellationToken = cancellationToken;
     }
 
     @Override
     public Task<AuthResult> then(@NonNull Task<AuthResult> task) {
+        if (mCancellationToken != null && mCancellationToken.isCancellationRequested()) {
+            return Tasks.forCanceled();
+        }
+
         final AuthResult authResult = task.getResult();
-        FirebaseUser firebaseUser = authResult.getUser();
+        final FirebaseUser firebaseUser = authResult.getUser();
 
         String name = firebaseUser.getDisplayName();
         Uri photoUri = firebaseUser.getPhotoUrl();
@@ -41,23 +72,40 @@ public class ProfileMerger implements Continuation<AuthResult, Task<AuthResult>>
         }
 
         User user = mResponse.getUser();
-        if (TextUtils.isEmpty(name)) { name = user.getName(); }
-        if (photoUri == null) { photoUri = user.getPhotoUri(); }
-
-        return firebaseUser.updateProfile(
-                new UserProfileChangeRequest.Builder()
-                        .setDisplayName(name)
-                        .setPhotoUri(photoUri)
-                        .build())
+        final String displayName = TextUtils.isEmpty(name) ? user.getName() : name;
+        final Uri photo = photoUri == null ? user.getPhotoUri() : photoUri;
+
+        final UserProfileChangeRequest request = new UserProfileChangeRequest.Builder()
+                .setDisplayName(displayName)
+                .setPhotoUri(photo)
+                .build();
+        if (!NetworkMonitor.getInstance(AuthUI.getApplicationContext()).isOnline()) {
+            // Not worth holding up the sign-in for, update the profile once back online
+            defer(firebaseUser, displayName, photo);
+            return Tasks.forResult(authResult);
+        }
+
+        return SignInTracer.getInstance().trace(SignInSpan.PROFILE_MERGE,
+                NetworkTasks.run(mNetworkPolicy, NetworkPolicy.UPDATE_PROFILE,
+                        () -> firebaseUser.updateProfile(request)))
                 .addOnFailureListener(new TaskFailureLogger(TAG, "Error updating profile"))
-                .continueWithTask(new Continuation<Void, Task<AuthResult>>() {
+                .continueWithTask(BackgroundExecutor.get(), new Continuation<Void, Task<AuthResult>>() {
                     @Override
                     public Task<AuthResult> then(@NonNull Task<Void> task) {
+                        // Out of retries for now, keep trying in the background
+                        if (NetworkTasks.isRetryable(task.getException())) {
+                            defer(firebaseUser, displayName, photo);
+                        }
                         return Tasks.forResult(authResult);
                     }
                 });
     }
 
+    private static void defer(FirebaseUser user, String displayName, Uri photoUri) {
+        DeferredOperationQueue.getInstance(AuthUI.getApplicationContext())
+                .updateProfile(user.getUid(), displayName, photoUri);
+    }
+
     private boolean hasMergeConflict(String name, Uri photoUri) {
         return !TextUtils.isEmpty(name) && photoUri != null;
     }
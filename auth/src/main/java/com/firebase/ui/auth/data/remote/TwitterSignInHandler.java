@@ -4,6 +4,7 @@ import android.app.Application;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.AsyncTask;
 
 import com.firebase.ui.auth.*;
 import com.firebase.ui.auth.IdentityProviderResponse;
@@ -12,6 +13,8 @@ import com.firebase.ui.auth.data.model.User;
 import com.firebase.ui.auth.ui.HelperActivityBase;
 import com.firebase.ui.auth.util.data.ProviderAvailability;
 import com.firebase.ui.auth.viewmodel.ProviderSignInBase;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.TwitterAuthProvider;
 import com.twitter.sdk.android.core.Callback;
 import com.twitter.sdk.android.core.Result;
@@ -23,34 +26,55 @@ import com.twitter.sdk.android.core.TwitterException;
 import com.twitter.sdk.android.core.TwitterSession;
 import com.twitter.sdk.android.core.identity.TwitterAuthClient;
 
+import java.util.concurrent.Callable;
+
 import androidx.annotation.*;
 
 public class TwitterSignInHandler extends ProviderSignInBase<Void> {
-    static {
-        if (ProviderAvailability.IS_TWITTER_AVAILABLE) {
-            Context context = AuthUI.getApplicationContext();
-            Twitter.initialize(new TwitterConfig.Builder(context)
-                    .twitterAuthConfig(new TwitterAuthConfig(
-                            context.getString(R.string.twitter_consumer_key),
-                            context.getString(R.string.twitter_consumer_secret)))
-                    .build());
-        }
-    }
+    private static Task<Void> sInitialization;
 
-    private final TwitterAuthClient mClient;
     private final TwitterSessionResult mCallback = new TwitterSessionResult();
+    @Nullable private TwitterAuthClient mClient;
 
     public TwitterSignInHandler(Application application) {
         super(application);
-        mClient = new TwitterAuthClient();
     }
 
-    public static void initializeTwitter() {
-        // This method is intentionally empty, but calling it forces the static {} block of this
-        // class to be executed (if it wasn't already).
-        //
-        // Even though it's currently safe to initialize Twitter more than once, this protects
-        // against a future behavior change and gives a small efficiency gain.
+    /**
+     * Initialize the Twitter SDK off the main thread, at most once per process.
+     * <p>
+     * The SDK reads its config from resources and disk on startup, so we only pay that cost once
+     * the user actually needs Twitter (signing in or out) rather than when the class is loaded.
+     * Every call returns the same task so callers can simply chain off of it, unless it failed in
+     * which case the next call tries again.
+     */
+    @NonNull
+    public static synchronized Task<Void> initializeTwitter(@NonNull Context context) {
+        if (sInitialization == null) {
+            if (!ProviderAvailability.IS_TWITTER_AVAILABLE) {
+                sInitialization = Tasks.forResult(null);
+            } else {
+                final Context appContext = context.getApplicationContext();
+                final Task<Void> initialization = Tasks.call(AsyncTask.THREAD_POOL_EXECUTOR, new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        Twitter.initialize(new TwitterConfig.Builder(appContext)
+                                .twitterAuthConfig(new TwitterAuthConfig(
+                                        appContext.getString(R.string.twitter_consumer_key),
+                                        appContext.getString(R.string.twitter_consumer_secret)))
+                                .build());
+                        return null;
+                    }
+                });
+                initialization.addOnFailureListener(e -> {
+                    synchronized (TwitterSignInHandler.class) {
+                        if (sInitialization == initialization) { sInitialization = null; }
+                    }
+                });
+                sInitialization = initialization;
+            }
+        }
+        return sInitialization;
     }
 
     private static IdentityProviderResponse createIdpResponse(
@@ -66,13 +90,46 @@ public class TwitterSignInHandler extends ProviderSignInBase<Void> {
     }
 
     @Override
-    public void startSignIn(@NonNull HelperActivityBase activity) {
-        mClient.authorize(activity, mCallback);
+    public void startSignIn(@NonNull final HelperActivityBase activity) {
+        initializeTwitter(activity).addOnCompleteListener(activity, task -> {
+            if (!task.isSuccessful()) {
+                setResult(Resource.<IdentityProviderResponse>forFailure(new FirebaseUiException(
+                        ErrorCodes.PROVIDER_ERROR, task.getException())));
+                return;
+            }
+
+            // The auth client can only be created once the SDK has been initialized
+            if (mClient == null) {
+                mClient = new TwitterAuthClient();
+            }
+            mClient.authorize(activity, mCallback);
+        });
     }
 
     @Override
-    public void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
-        mClient.onActivityResult(requestCode, resultCode, data);
+    public void onActivityResult(final int requestCode,
+                                 final int resultCode,
+                                 @Nullable final Intent data) {
+        if (mClient != null) {
+            mClient.onActivityResult(requestCode, resultCode, data);
+            return;
+        }
+        if (requestCode != TwitterAuthConfig.DEFAULT_AUTH_REQUEST_CODE) { return; }
+
+        // We were recreated while Twitter was up, the auth state lives in the SDK so a new client
+        // can still pick up the result.
+        initializeTwitter(getApplication()).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                setResult(Resource.<IdentityProviderResponse>forFailure(new FirebaseUiException(
+                        ErrorCodes.PROVIDER_ERROR, task.getException())));
+                return;
+            }
+
+            if (mClient == null) {
+                mClient = new TwitterAuthClient();
+            }
+            mClient.onActivityResult(requestCode, resultCode, data);
+        });
     }
 
     private class TwitterSessionResult extends Callback<TwitterSession> {
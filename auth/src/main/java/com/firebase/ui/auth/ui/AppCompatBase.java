@@ -48,4 +48,33 @@ public abstract class AppCompatBase extends HelperActivityBase {
     protected void switchFragment(@NonNull Fragment fragment, int fragmentId, @NonNull String tag) {
         switchFragment(fragment, fragmentId, tag, false, false);
     }
+
+    /**
+     * Show a fragment in place of the others in the same container, hiding them rather than
+     * removing them so their views are kept for when the user switches back. A fragment that
+     * has the same tag but is a different instance is removed.
+     */
+    protected void showFragment(@NonNull Fragment fragment, int fragmentId, @NonNull String tag) {
+        FragmentManager fm = getSupportFragmentManager();
+        FragmentTransaction ft = fm.beginTransaction();
+
+        Fragment previous = fm.findFragmentByTag(tag);
+        if (previous != null && previous != fragment) {
+            ft.remove(previous);
+        }
+        for (Fragment other : fm.getFragments()) {
+            if (other != fragment && other != previous
+                    && other.getId() == fragmentId && !other.isHidden()) {
+                ft.hide(other);
+            }
+        }
+
+        if (fragment.isAdded()) {
+            ft.show(fragment);
+        } else {
+            ft.add(fragmentId, fragment, tag);
+        }
+        // Committed now so a quick switch back sees the fragment as added
+        ft.disallowAddToBackStack().commitNow();
+    }
 }
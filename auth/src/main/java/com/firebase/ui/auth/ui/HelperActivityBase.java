@@ -2,15 +2,23 @@ package com.firebase.ui.auth.ui;
 
 import android.app.Activity;
 import android.content.*;
-import android.net.ConnectivityManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
 
 import com.firebase.ui.auth.*;
 import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.data.model.FlowParametersRegistry;
+import com.firebase.ui.auth.data.remote.CredentialSaveWorker;
 import com.firebase.ui.auth.ui.credentials.CredentialSaveActivity;
 import com.firebase.ui.auth.util.*;
+import com.firebase.ui.auth.util.data.NetworkMonitor;
 import com.firebase.ui.auth.util.data.ProviderUtils;
 import com.firebase.ui.auth.viewmodel.RequestCodes;
 import com.google.android.gms.auth.api.credentials.Credential;
+import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseUser;
 
 import androidx.annotation.*;
@@ -20,8 +28,15 @@ import static com.firebase.ui.auth.util.Preconditions.checkNotNull;
 
 
 public abstract class HelperActivityBase extends AppCompatActivity implements ProgressView {
+    private static final String TAG = "HelperActivityBase";
+
     private FlowParameters mParams;
 
+    /**
+     * Create an intent for another activity of the flow. Only a token to the parameters is sent,
+     * see {@link FlowParametersRegistry}. Intents that may be started from outside the current
+     * flow should also be given the parameters with {@link #withFullFlowParams}.
+     */
     protected static Intent createBaseIntent(@NonNull Context context,
                                              @NonNull Class<? extends Activity> target,
                                              @NonNull FlowParameters flowParams) {
@@ -29,12 +44,49 @@ public abstract class HelperActivityBase extends AppCompatActivity implements Pr
         Intent intent = new Intent(
                 checkNotNull(context, "context cannot be null"),
                 checkNotNull(target, "target activity cannot be null")
-        ).putExtra(ExtraConstants.FLOW_PARAMS,
-                checkNotNull(flowParams, "flowParams cannot be null"));
+        ).putExtra(ExtraConstants.FLOW_PARAMS_TOKEN, FlowParametersRegistry.register(
+                checkNotNull(flowParams, "flowParams cannot be null")));
         intent.setExtrasClassLoader(AuthUI.class.getClassLoader());
         return intent;
     }
 
+    /**
+     * Add a parceled copy of the parameters for intents that could outlive this process, such as
+     * the one handed to the app or one wrapped in a notification.
+     */
+    @NonNull
+    public static Intent withFullFlowParams(@NonNull Intent intent, @NonNull FlowParameters flowParams) {
+        return intent.putExtra(ExtraConstants.FLOW_PARAMS, flowParams);
+    }
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        // Must happen before super.onCreate since restored fragments may need the parameters
+        long token = getIntent().getLongExtra(ExtraConstants.FLOW_PARAMS_TOKEN, 0);
+        FlowParameters saved = savedInstanceState == null ? null
+                : savedInstanceState.<FlowParameters>getParcelable(ExtraConstants.FLOW_PARAMS);
+        if (saved != null && token != 0) {
+            // We were killed, share the saved copy with the rest of the restored flow
+            FlowParametersRegistry.restore(token, saved);
+            mParams = FlowParametersRegistry.get(token);
+        } else if (saved != null) {
+            mParams = saved;
+        } else {
+            // Holding on to them keeps them registered for the next screens of the flow
+            mParams = FlowParameters.fromIntent(getIntent());
+        }
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // The registry is gone if the process dies, keep a copy to recover from
+        if (getIntent().hasExtra(ExtraConstants.FLOW_PARAMS_TOKEN) && getFlowParams() != null) {
+            outState.putParcelable(ExtraConstants.FLOW_PARAMS, getFlowParams());
+        }
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
@@ -57,6 +109,11 @@ public abstract class HelperActivityBase extends AppCompatActivity implements Pr
     }
 
     public void startSaveCredentials(FirebaseUser firebaseUser, IdentityProviderResponse response, @Nullable String password) {
+        if (getFlowParams().backgroundCredentialSave) {
+            saveCredentialsInBackground(firebaseUser, response, password);
+            return;
+        }
+
         // Build credential
         String accountType = ProviderUtils.idpResponseToAccountType(response);
         Credential credential = CredentialUtils.buildCredential(firebaseUser, password, accountType);
@@ -66,17 +123,48 @@ public abstract class HelperActivityBase extends AppCompatActivity implements Pr
         startActivityForResult(intent, RequestCodes.CRED_SAVE_FLOW);
     }
 
+    /**
+     * Stay up until the save settles: the result is returned right away unless Smart Lock needs
+     * the user to confirm the save, which is done from here like a foreground save.
+     */
+    private void saveCredentialsInBackground(FirebaseUser firebaseUser,
+                                             final IdentityProviderResponse response,
+                                             @Nullable String password) {
+        CredentialSaveWorker.getInstance()
+                .save(this, getFlowParams(), firebaseUser, response, password)
+                .addOnCompleteListener(new OnCompleteListener<Void>() {
+                    @Override
+                    public void onComplete(@NonNull Task<Void> task) {
+                        if (isFinishing() || isDestroyedCompat()) {
+                            Log.w(TAG, "Flow is gone, dropping save result.");
+                            return;
+                        }
+
+                        Exception e = task.getException();
+                        if (e instanceof ResolvableApiException) {
+                            startActivityForResult(CredentialSaveActivity.createResolutionIntent(
+                                    HelperActivityBase.this,
+                                    getFlowParams(),
+                                    ((ResolvableApiException) e).getResolution(),
+                                    response), RequestCodes.CRED_SAVE_FLOW);
+                        } else {
+                            // RESULT_OK since a failed save shouldn't halt sign-in
+                            finish(RESULT_OK, response.toIntent());
+                        }
+                    }
+                });
+    }
+
+    private boolean isDestroyedCompat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && isDestroyed();
+    }
+
     /**
      * Check if there is an active or soon-to-be-active network connection.
      *
      * @return true if there is no network connection, false otherwise.
      */
     protected boolean isOffline() {
-        ConnectivityManager manager = (ConnectivityManager) getApplicationContext()
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        return !(manager != null
-                && manager.getActiveNetworkInfo() != null
-                && manager.getActiveNetworkInfo().isConnectedOrConnecting());
+        return !NetworkMonitor.getInstance(this).isOnline();
     }
 }
@@ -1,5 +1,6 @@
 package com.firebase.ui.auth.ui.credentials;
 
+import android.app.PendingIntent;
 import android.content.*;
 import android.os.Bundle;
 import android.util.Log;
@@ -30,12 +31,24 @@ public class CredentialSaveActivity extends InvisibleActivityBase {
                 .putExtra(ExtraConstants.IDP_RESPONSE, response);
     }
 
+    /**
+     * Only resolve a save that was already attempted in the background.
+     */
+    @NonNull
+    public static Intent createResolutionIntent(Context context, FlowParameters flowParams, PendingIntent resolution, IdentityProviderResponse response) {
+        // Started from the background, possibly long after the flow that created it ended
+        return withFullFlowParams(createBaseIntent(context, CredentialSaveActivity.class, flowParams), flowParams)
+                .putExtra(ExtraConstants.PENDING_INTENT, resolution)
+                .putExtra(ExtraConstants.IDP_RESPONSE, response);
+    }
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
         final IdentityProviderResponse response = getIntent().getParcelableExtra(ExtraConstants.IDP_RESPONSE);
         Credential credential = getIntent().getParcelableExtra(ExtraConstants.CREDENTIAL);
+        PendingIntent resolution = getIntent().getParcelableExtra(ExtraConstants.PENDING_INTENT);
 
         mHandler = ViewModelProviders.of(this).get(SmartLockHandler.class);
         mHandler.init(getFlowParams());
@@ -56,7 +69,10 @@ public class CredentialSaveActivity extends InvisibleActivityBase {
 
         // Avoid double-saving
         Resource<IdentityProviderResponse> currentOp = mHandler.getOperation().getValue();
-        if (currentOp == null) {
+        if (currentOp == null && resolution != null) {
+            Log.d(TAG, "Resolving background save operation.");
+            mHandler.resolveSave(resolution);
+        } else if (currentOp == null) {
             Log.d(TAG, "Launching save operation.");
             mHandler.saveCredentials(credential);
         } else {
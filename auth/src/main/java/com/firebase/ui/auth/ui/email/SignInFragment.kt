@@ -8,7 +8,6 @@ import android.view.ViewGroup
 import androidx.annotation.RestrictTo
 import androidx.annotation.StringRes
 import androidx.lifecycle.ViewModelProviders
-import com.afollestad.vvalidator.form
 import com.firebase.ui.auth.ErrorCodes
 import com.firebase.ui.auth.FirebaseUiException
 import com.firebase.ui.auth.IdentityProviderResponse
@@ -16,7 +15,9 @@ import com.firebase.ui.auth.R
 import com.firebase.ui.auth.data.model.User
 import com.firebase.ui.auth.ui.FragmentBase
 import com.firebase.ui.auth.util.ExtraConstants
-import com.firebase.ui.auth.util.ui.fieldvalidators.VValidation.Companion.formatErrorMessages
+import com.firebase.ui.auth.util.ui.LayoutPreInflater
+import com.firebase.ui.auth.util.ui.fieldvalidators.FormRules
+import com.firebase.ui.auth.util.ui.fieldvalidators.FormValidator
 import com.firebase.ui.auth.viewmodel.ResourceObserver
 import com.firebase.ui.auth.viewmodel.email.CheckEmailHandler
 import com.firebase.ui.auth.viewmodel.email.EmailSignInHandler
@@ -44,6 +45,8 @@ class SignInFragment : FragmentBase() {
     private lateinit var mCheckEmailListener: CheckEmailListener
 
     private lateinit var mAuthenticationButtonsListener: AuthenticationButtonsListener
+    private lateinit var mForm: FormValidator
+
     @StringRes
     private fun getErrorMessage(exception: Exception): Int {
         return if (exception is FirebaseAuthInvalidCredentialsException) {
@@ -76,7 +79,8 @@ class SignInFragment : FragmentBase() {
     override fun onCreateView(inflater: LayoutInflater,
                               container: ViewGroup?,
                               savedInstanceState: Bundle?): View? {
-        return inflater.inflate(R.layout.fui_sign_in_layout, container, false)
+        return LayoutPreInflater.getInstance().take(requireContext(), R.layout.fui_sign_in_layout)
+                ?: inflater.inflate(R.layout.fui_sign_in_layout, container, false)
     }
 
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
@@ -110,41 +114,31 @@ class SignInFragment : FragmentBase() {
         // TODO unsetErrorOfLayoutOnTyping from iClinic Validation.kt
          */
 
-        txt_dont_have_account_sign_up.setOnClickListener {
-            mAuthenticationButtonsListener.switchToSignUp()
-        }
-
-        form {
-            input(view.emailEditText) {
-                isEmail().description("## email format error")
-                isNotEmpty().description("## email cannot be empty")
-                onErrors { _, errors ->
-                    formatErrorMessages(errors, emailEditTextLayout)
-                }
-            }
-            input(view.passwordEditText) {
-                length().atLeast(8).description("## at least 8 characters")
-                length().atMost(32).description("## at maximum 32 characters")
-                matches("^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z])(?=.*[a-zA-Z]).*$").description("" +
-                        "## can contain special characters " +
-                        "## at least 1 uppercase letter " +
-                        "## at least 1 lowercase letter " +
-                        "## at least 1 number"
-                )
-                onErrors { _, errors ->
-                    formatErrorMessages(errors, passwordEditTextLayout)
-                }
-            }
-
-            submitWith(view.signInButton) {
-                val email = emailEditText.text.toString()
-                mCheckEmailHandler.fetchProvider(email)
+        if (savedInstanceState == null) {
+            arguments?.getParcelable<User>(ExtraConstants.USER)?.email?.let {
+                emailEditText.setText(it)
             }
         }
 
+        txt_dont_have_account_sign_up.setOnClickListener {
+            mAuthenticationButtonsListener.switchToSignUp()
+        }
 
+        mForm = FormValidator()
+        mForm.field(view.emailEditText,
+                view.emailEditTextLayout,
+                FormRules.email(view.emailEditText))
+        mForm.field(view.passwordEditText, view.passwordEditTextLayout, FormRules.PASSWORD)
+        mForm.submitWith(view.signInButton, Runnable {
+            val email = emailEditText.text.toString()
+            mCheckEmailHandler.fetchProvider(email)
+        })
     }
 
+    override fun onDestroyView() {
+        super.onDestroyView()
+        mForm.cancel()
+    }
 
     override fun onActivityCreated(savedInstanceState: Bundle?) {
         super.onActivityCreated(savedInstanceState)
@@ -7,13 +7,14 @@ import android.view.View
 import android.view.ViewGroup
 import androidx.annotation.RestrictTo
 import androidx.lifecycle.ViewModelProviders
-import com.afollestad.vvalidator.form
 import com.firebase.ui.auth.IdentityProviderResponse
 import com.firebase.ui.auth.R
 import com.firebase.ui.auth.data.model.User
 import com.firebase.ui.auth.ui.FragmentBase
 import com.firebase.ui.auth.util.ExtraConstants
-import com.firebase.ui.auth.util.ui.fieldvalidators.VValidation.Companion.formatErrorMessages
+import com.firebase.ui.auth.util.ui.LayoutPreInflater
+import com.firebase.ui.auth.util.ui.fieldvalidators.FormRules
+import com.firebase.ui.auth.util.ui.fieldvalidators.FormValidator
 import com.firebase.ui.auth.viewmodel.ResourceObserver
 import com.firebase.ui.auth.viewmodel.email.EmailProviderResponseHandler
 import com.google.firebase.auth.EmailAuthProvider
@@ -47,6 +48,7 @@ class SignUpFragment() : FragmentBase() {
     private lateinit var mUser: User
     private lateinit var mAuthenticationButtonsListener: AuthenticationButtonsListener
     private lateinit var mHandler: EmailProviderResponseHandler
+    private lateinit var mForm: FormValidator
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -80,7 +82,8 @@ class SignUpFragment() : FragmentBase() {
     override fun onCreateView(inflater: LayoutInflater,
                               container: ViewGroup?,
                               savedInstanceState: Bundle?): View? {
-        return inflater.inflate(R.layout.fui_sign_up_layout, container, false)
+        return LayoutPreInflater.getInstance().take(requireContext(), R.layout.fui_sign_up_layout)
+                ?: inflater.inflate(R.layout.fui_sign_up_layout, container, false)
     }
 
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
@@ -118,46 +121,27 @@ class SignUpFragment() : FragmentBase() {
             mAuthenticationButtonsListener.switchToSignIn()
         }
 
-        form {
-            input(view.emailEditText) {
-                isEmail().description("## email format error")
-                isNotEmpty().description("## email cannot be empty")
-                onErrors { _, errors ->
-                    formatErrorMessages(errors, emailEditTextLayout)
-                }
-            }
-
-            input(view.passwordEditText) {
-                length().atLeast(8).description("## at least 8 characters")
-                length().atMost(32).description("## at maximum 32 characters")
-                matches("^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z])(?=.*[a-zA-Z]).*$").description("## can contain special characters ## at least 1 uppercase letter ## at least 1 lowercase letter ## at least 1 number")
-                onErrors { _, errors ->
-                    formatErrorMessages(errors, passwordEditTextLayout)
-                }
-            }
-
-            input(view.passwordRepeatEditText) {
-                isNotEmpty().description("## password cannot be empty")
-                assert("## password not matched") {
-                    passwordRepeatEditText.text.toString() == passwordEditText.text.toString()
-                }
-                onErrors { _, errors ->
-                    formatErrorMessages(errors, passwordRepeatEditTextLayout)
-                }
-            }
-
-            submitWith(view.signUpButton) {
-                val email = emailEditText.text.toString()
-                val password = passwordEditText.text.toString()
-
-                mHandler.startSignIn(IdentityProviderResponse.Builder(
-                        User.Builder(EmailAuthProvider.PROVIDER_ID, email)
-                                .setPhotoUri(mUser.photoUri)
-                                .build())
-                        .build(),
-                        password)
-            }
-        }
+        mForm = FormValidator()
+        mForm.field(view.emailEditText,
+                view.emailEditTextLayout,
+                FormRules.email(view.emailEditText))
+        val passwordField = mForm.field(
+                view.passwordEditText, view.passwordEditTextLayout, FormRules.PASSWORD)
+        mForm.field(view.passwordRepeatEditText,
+                view.passwordRepeatEditTextLayout,
+                FormRules.passwordRepeat(view.passwordEditText))
+                .dependsOn(passwordField)
+        mForm.submitWith(view.signUpButton, Runnable {
+            val email = emailEditText.text.toString()
+            val password = passwordEditText.text.toString()
+
+            mHandler.startSignIn(IdentityProviderResponse.Builder(
+                    User.Builder(EmailAuthProvider.PROVIDER_ID, email)
+                            .setPhotoUri(mUser.photoUri)
+                            .build())
+                    .build(),
+                    password)
+        })
 
 //        val emailConfig = ProviderUtils.getConfigFromIdpsOrThrow(flowParams.providers, EmailAuthProvider.PROVIDER_ID)
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && flowParams.enableCredentials) {
@@ -168,6 +152,11 @@ class SignUpFragment() : FragmentBase() {
         if(email?.isNotEmpty()!!) view.emailEditText.setText(email)
     }
 
+    override fun onDestroyView() {
+        super.onDestroyView()
+        mForm.cancel()
+    }
+
     override fun onActivityCreated(savedInstanceState: Bundle?) {
         super.onActivityCreated(savedInstanceState)
 
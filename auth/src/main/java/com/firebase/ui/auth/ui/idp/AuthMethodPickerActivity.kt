@@ -23,6 +23,8 @@ import android.widget.TextView
 import android.widget.Toast
 import androidx.annotation.RestrictTo
 import androidx.annotation.StringRes
+import androidx.annotation.VisibleForTesting
+import androidx.lifecycle.Observer
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.ViewModelProviders
 import com.firebase.ui.auth.AuthUI
@@ -31,11 +33,16 @@ import com.firebase.ui.auth.ErrorCodes
 import com.firebase.ui.auth.FirebaseUiException
 import com.firebase.ui.auth.IdentityProviderResponse
 import com.firebase.ui.auth.R
+import com.firebase.ui.auth.SignInSpan
 import com.firebase.ui.auth.data.model.FlowParameters
+import com.firebase.ui.auth.data.model.IntentRequiredException
+import com.firebase.ui.auth.data.model.Resource
+import com.firebase.ui.auth.data.model.State
 import com.firebase.ui.auth.data.model.User
 import com.firebase.ui.auth.data.model.UserCancellationException
 import com.firebase.ui.auth.data.remote.FacebookSignInHandler
 import com.firebase.ui.auth.data.remote.GoogleSignInHandler
+import com.firebase.ui.auth.data.remote.MainSignInHandler
 import com.firebase.ui.auth.data.remote.TwitterSignInHandler
 import com.firebase.ui.auth.ui.AppCompatBase
 import com.firebase.ui.auth.ui.HelperActivityBase
@@ -43,21 +50,30 @@ import com.firebase.ui.auth.ui.email.AuthenticationButtonsListener
 import com.firebase.ui.auth.ui.email.RecoverPasswordActivity
 import com.firebase.ui.auth.ui.email.SignInFragment
 import com.firebase.ui.auth.ui.email.SignUpFragment
+import com.firebase.ui.auth.util.CredentialUtils
 import com.firebase.ui.auth.util.ExtraConstants
 import com.firebase.ui.auth.util.data.ProviderUtils
+import com.firebase.ui.auth.util.data.SignInTracer
+import com.firebase.ui.auth.util.ui.FlowUtils
+import com.firebase.ui.auth.util.ui.LayoutPreInflater
 import com.firebase.ui.auth.viewmodel.ProviderSignInBase
+import com.firebase.ui.auth.viewmodel.RequestCodes
 import com.firebase.ui.auth.viewmodel.ResourceObserver
 import com.firebase.ui.auth.viewmodel.email.EmailSignInHandler
 import com.firebase.ui.auth.viewmodel.idp.LinkingSocialProviderResponseHandler
 import com.firebase.ui.auth.viewmodel.idp.SocialProviderResponseHandler
+import com.firebase.ui.auth.viewmodel.smartlock.SmartLockHandler
+import com.google.android.gms.common.GoogleApiAvailability
 import com.google.android.material.snackbar.Snackbar
 import com.google.firebase.auth.EmailAuthProvider
 import com.google.firebase.auth.FacebookAuthProvider
 import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException
+import com.google.firebase.auth.FirebaseUser
 import com.google.firebase.auth.GoogleAuthProvider
 import com.google.firebase.auth.TwitterAuthProvider
 import kotlinx.android.synthetic.main.fui_auth_method_picker_layout.*
 import java.util.ArrayList
+import java.util.LinkedHashMap
 
 /**
  * Presents the list of authentication options for this app to the user.
@@ -65,58 +81,107 @@ import java.util.ArrayList
 class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListener, AuthenticationButtonsListener {
 
     private lateinit var mIdpUser: User
-    private lateinit var mSocialHandler: SocialProviderResponseHandler
-    private lateinit var mSocialLinkingHandler: LinkingSocialProviderResponseHandler
-    private lateinit var mEmailHandler: EmailSignInHandler
 
-    private lateinit var mSocialProviders: MutableList<ProviderSignInBase<*>>
+    // Handlers are ViewModels that are only created once they are actually needed: most users
+    // only ever tap a single provider, so there is no point in paying for the others (Facebook
+    // for example registers a LoginManager callback as soon as it is initialized).
+    private var mSocialHandler: SocialProviderResponseHandler? = null
+    private var mSocialLinkingHandler: LinkingSocialProviderResponseHandler? = null
+    private var mEmailHandler: EmailSignInHandler? = null
+    private val mSocialProviders = LinkedHashMap<String, ProviderSignInBase<*>>()
+
     private lateinit var mSignInFragment: SignInFragment
-    private lateinit var mSignUpFragment: SignUpFragment
+    private var mSignUpFragment: SignUpFragment? = null
+
+    // Only used when the whole flow is hosted by this activity, see FlowParameters#singleActivityFlow
+    private var mMainHandler: MainSignInHandler? = null
+    private var mSmartLockHandler: SmartLockHandler? = null
 
     private lateinit var mSupplier: ViewModelProvider
 
+    private var mFlowSpan: SignInTracer.Span? = null
+    private var mDisplaySpan: SignInTracer.Span? = null
+    private var mProviderSpan: SignInTracer.Span? = null
+
+    /**
+     * The number of sign-in handlers that have been constructed so far.
+     */
+    @get:VisibleForTesting
+    val constructedHandlerCount: Int
+        get() = mSocialProviders.size +
+                listOfNotNull(mSocialHandler, mSocialLinkingHandler, mEmailHandler,
+                        mMainHandler, mSmartLockHandler).size
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         mSupplier = ViewModelProviders.of(this)
+        if (savedInstanceState == null) {
+            if (flowParams.singleActivityFlow) {
+                mFlowSpan = SignInTracer.getInstance().startFlow()
+            }
+            mDisplaySpan = SignInTracer.getInstance().start(SignInSpan.PICKER_DISPLAY)
+        }
 
-        mSocialHandler = mSupplier.get(SocialProviderResponseHandler::class.java)
-        mSocialHandler.init(flowParams)
-
-        mSocialLinkingHandler = mSupplier.get(LinkingSocialProviderResponseHandler::class.java)
-        mSocialLinkingHandler.init(flowParams)
-
-        mEmailHandler = mSupplier.get(EmailSignInHandler::class.java)
-
-        mSignInFragment = SignInFragment()
-        mSignUpFragment = SignUpFragment()
-
+        val email = intent.getStringExtra(ExtraConstants.EMAIL)
+        mSignInFragment = if (email == null) SignInFragment() else newSignInFragment(email)
         switchFragment(mSignInFragment, R.id.auth_fragment, SignInFragment.TAG)
 
-        mSocialProviders = ArrayList()
-
-        setContentView(R.layout.fui_auth_method_picker_layout)
+        val preInflated = LayoutPreInflater.getInstance()
+                .take(this, R.layout.fui_auth_method_picker_layout)
+        if (preInflated == null) {
+            setContentView(R.layout.fui_auth_method_picker_layout)
+        } else {
+            setContentView(preInflated)
+        }
 
         populateIdpList(flowParams.providers)
 
-        mSocialHandler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(
-                this, R.string.fui_progress_dialog_signing_in) {
-            override fun onSuccess(response: IdentityProviderResponse) {
-                startSaveCredentials(mSocialHandler.currentUser, response, null)
+        // Handlers that were in use before a configuration change may still have an operation in
+        // flight, reattach to them so we don't lose their result.
+        savedInstanceState?.getStringArrayList(KEY_ACTIVE_HANDLERS)?.forEach { key ->
+            when (key) {
+                KEY_SOCIAL_HANDLER -> getSocialHandler()
+                KEY_LINKING_HANDLER -> getSocialLinkingHandler()
+                KEY_EMAIL_HANDLER -> getEmailHandler()
+                KEY_SMART_LOCK_HANDLER -> getSmartLockHandler()
+                else -> getSocialProvider(key)
             }
+        }
 
-            override fun onFailure(e: Exception) {
-                if (e !is UserCancellationException) {
-                    val text = if (e is FirebaseUiException)
-                        e.message
-                    else
-                        getString(R.string.fui_error_unknown)
-                    Toast.makeText(this@AuthMethodPickerActivity,
-                            text,
-                            Toast.LENGTH_SHORT).show()
-                }
-            }
+        if (flowParams.singleActivityFlow) {
+            startSingleActivityFlow(savedInstanceState)
+        }
+    }
+
+    override fun onResume() {
+        super.onResume()
+        mDisplaySpan?.end(SignInSpan.OUTCOME_SUCCESS)
+        mDisplaySpan = null
+    }
+
+    override fun onDestroy() {
+        super.onDestroy()
+        // Views for this flow that weren't needed, e.g. the sign up form
+        if (isFinishing) LayoutPreInflater.getInstance().clear()
+    }
+
+    override fun finish(resultCode: Int, intent: Intent?) {
+        mFlowSpan?.end(when {
+            resultCode == Activity.RESULT_OK -> SignInSpan.OUTCOME_SUCCESS
+            intent == null -> SignInSpan.OUTCOME_CANCELLED
+            else -> SignInSpan.OUTCOME_FAILURE
         })
+        super.finish(resultCode, intent)
+    }
 
+    override fun onSaveInstanceState(outState: Bundle) {
+        super.onSaveInstanceState(outState)
+        val active = ArrayList<String>(mSocialProviders.keys)
+        if (mSocialHandler != null) active.add(KEY_SOCIAL_HANDLER)
+        if (mSocialLinkingHandler != null) active.add(KEY_LINKING_HANDLER)
+        if (mEmailHandler != null) active.add(KEY_EMAIL_HANDLER)
+        if (mSmartLockHandler != null) active.add(KEY_SMART_LOCK_HANDLER)
+        outState.putStringArrayList(KEY_ACTIVE_HANDLERS, active)
     }
 
     /*
@@ -131,42 +196,80 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
      */
 
     private fun populateIdpList(providerConfigs: List<IdentityProviderConfig>) {
-
-        mSocialProviders = ArrayList()
-
         providerConfigs.forEach { idpConfig ->
             when (idpConfig.providerId) {
 
                 GoogleAuthProvider.PROVIDER_ID ->
-                    handleSocialProviderSignInOperation(idpConfig, googleSignInButton)
+                    bindSocialProviderButton(idpConfig.providerId, googleSignInButton)
 
                 FacebookAuthProvider.PROVIDER_ID ->
-                    handleSocialProviderSignInOperation(idpConfig, facebookSignInButton)
+                    bindSocialProviderButton(idpConfig.providerId, facebookSignInButton)
 
                 TwitterAuthProvider.PROVIDER_ID ->
-                    handleSocialProviderSignInOperation(idpConfig, twitterSignInButton)
+                    bindSocialProviderButton(idpConfig.providerId, twitterSignInButton)
 
-                EmailAuthProvider.PROVIDER_ID ->
-                    handleEmailSignInOperation()
+                EmailAuthProvider.PROVIDER_ID -> {
+                    // The email handler is created when the user submits the sign in form
+                }
 
                 else -> throw IllegalStateException("Unknown provider: ${idpConfig.providerId}")
             }
         }
     }
 
-    @StringRes
-    private fun getErrorMessage(exception: Exception): Int {
-        return if (exception is FirebaseAuthInvalidCredentialsException) {
-            R.string.fui_error_invalid_password
-        } else R.string.fui_error_unknown
+    private fun getSocialHandler(): SocialProviderResponseHandler {
+        mSocialHandler?.let { return it }
+
+        val handler = mSupplier.get(SocialProviderResponseHandler::class.java)
+        handler.init(flowParams)
+        handler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(
+                this, R.string.fui_progress_dialog_signing_in) {
+            override fun onSuccess(response: IdentityProviderResponse) {
+                startSaveCredentials(handler.currentUser, response, null)
+            }
 
+            override fun onFailure(e: Exception) {
+                if (e !is UserCancellationException) {
+                    val text = if (e is FirebaseUiException)
+                        e.message
+                    else
+                        getString(R.string.fui_error_unknown)
+                    Toast.makeText(this@AuthMethodPickerActivity,
+                            text,
+                            Toast.LENGTH_SHORT).show()
+                }
+            }
+        })
+        mSocialHandler = handler
+        return handler
     }
 
-    private fun handleEmailSignInOperation() {
+    private fun getSocialLinkingHandler(): LinkingSocialProviderResponseHandler {
+        mSocialLinkingHandler?.let { return it }
 
-        mEmailHandler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this, R.string.fui_progress_dialog_signing_in) {
+        val handler = mSupplier.get(LinkingSocialProviderResponseHandler::class.java)
+        handler.init(flowParams)
+        handler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this) {
             override fun onSuccess(response: IdentityProviderResponse) {
-                startSaveCredentials(mEmailHandler.currentUser, response, mEmailHandler.pendingPassword)
+                snackbarShow("Idp : ${response.providerType} Success")
+            }
+
+            override fun onFailure(e: java.lang.Exception) {
+                snackbarShow("Idp signin : cancelled")
+            }
+        })
+        mSocialLinkingHandler = handler
+        return handler
+    }
+
+    private fun getEmailHandler(): EmailSignInHandler {
+        mEmailHandler?.let { return it }
+
+        val handler = mSupplier.get(EmailSignInHandler::class.java)
+        handler.init(flowParams)
+        handler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this, R.string.fui_progress_dialog_signing_in) {
+            override fun onSuccess(response: IdentityProviderResponse) {
+                startSaveCredentials(handler.currentUser, response, handler.pendingPassword)
             }
 
             override fun onFailure(e: Exception) {
@@ -174,38 +277,133 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
             }
 
         })
+        mEmailHandler = handler
+        return handler
     }
 
-    private fun snackbarShow(message: String) {
-        Snackbar.make(auth_fragment, message, Snackbar.LENGTH_INDEFINITE)
-                .setAction("ok") {}
-                .apply { view.findViewById<TextView>(com.google.android.material.R.id.snackbar_text).maxLines = 10 }
-                .show()
+    /**
+     * Runs what [com.firebase.ui.auth.MainSignInActivity] would otherwise do, without leaving
+     * this activity: credential hints are resolved here and provider redirects are handled in
+     * place rather than by launching another activity.
+     */
+    private fun startSingleActivityFlow(savedInstanceState: Bundle?) {
+        val handler = mSupplier.get(MainSignInHandler::class.java)
+        handler.init(flowParams)
+        handler.operation.observe(this, Observer { resource -> onMainSignInResult(resource) })
+        mMainHandler = handler
+
+        if (savedInstanceState != null) {
+            return
+        }
+
+        SignInTracer.getInstance().trace(SignInSpan.PLAY_SERVICES_CHECK,
+                GoogleApiAvailability.getInstance().makeGooglePlayServicesAvailable(this))
+                .addOnSuccessListener(this) { handler.start() }
+                .addOnFailureListener(this) { e ->
+                    finish(Activity.RESULT_CANCELED, IdentityProviderResponse.getErrorIntent(FirebaseUiException(
+                            ErrorCodes.PLAY_SERVICES_UPDATE_CANCELLED, e)))
+                }
     }
 
-    private fun handleSocialProviderSignInOperation(identityProviderConfig: IdentityProviderConfig, view: View) {
-        val providerId = identityProviderConfig.providerId
-        val provider: ProviderSignInBase<*>
+    private fun onMainSignInResult(resource: Resource<IdentityProviderResponse>) {
+        if (resource.state == State.LOADING) {
+            showProgress(R.string.fui_progress_dialog_loading)
+            return
+        }
+        hideProgress()
+
+        if (resource.state == State.SUCCESS) {
+            finish(Activity.RESULT_OK, resource.value!!.toIntent())
+            return
+        }
+
+        val e = resource.exception
+        if (e is IntentRequiredException) {
+            // These would normally launch another activity, but we already host that part of the flow
+            when (e.requestCode) {
+                RequestCodes.AUTH_PICKER_FLOW -> return
+                RequestCodes.EMAIL_FLOW -> {
+                    mSignInFragment = newSignInFragment(e.intent.getStringExtra(ExtraConstants.EMAIL))
+                    switchToSignIn()
+                    return
+                }
+                RequestCodes.PROVIDER_FLOW -> {
+                    val user = User.getUser(e.intent)
+                    startProviderSignIn(getSocialProvider(user.providerId, user.email))
+                    return
+                }
+            }
+        }
 
-        when (providerId) {
+        if (FlowUtils.unhandled(this, e)) {
+            finish(Activity.RESULT_CANCELED, IdentityProviderResponse.getErrorIntent(e!!))
+        }
+    }
+
+    private fun getSmartLockHandler(): SmartLockHandler {
+        mSmartLockHandler?.let { return it }
+
+        val handler = mSupplier.get(SmartLockHandler::class.java)
+        handler.init(flowParams)
+        handler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this) {
+            override fun onSuccess(response: IdentityProviderResponse) {
+                finish(Activity.RESULT_OK, response.toIntent())
+            }
+
+            override fun onFailure(e: Exception) {
+                // RESULT_OK since we don't want to halt sign-in just because of a credential save error.
+                finish(Activity.RESULT_OK, handler.response?.toIntent())
+            }
+        })
+        mSmartLockHandler = handler
+        return handler
+    }
+
+    override fun startSaveCredentials(firebaseUser: FirebaseUser?,
+                                      response: IdentityProviderResponse,
+                                      password: String?) {
+        if (!flowParams.singleActivityFlow || flowParams.backgroundCredentialSave) {
+            super.startSaveCredentials(firebaseUser, response, password)
+            return
+        }
+
+        val accountType = ProviderUtils.idpResponseToAccountType(response)
+        val handler = getSmartLockHandler()
+        handler.setResponse(response)
+        handler.saveCredentials(CredentialUtils.buildCredential(firebaseUser, password, accountType))
+    }
+
+    /**
+     * Get or lazily create the sign-in handler for a social provider.
+     *
+     * @param email optional email used to preselect the account if the provider supports it
+     */
+    private fun getSocialProvider(providerId: String, email: String? = null): ProviderSignInBase<*> {
+        mSocialProviders[providerId]?.let { cached ->
+            if (email != null && cached is GoogleSignInHandler) cached.setEmail(email)
+            return cached
+        }
+
+        val config = ProviderUtils.getConfigFromIdpsOrThrow(flowParams.providers, providerId)
+        val provider: ProviderSignInBase<*> = when (providerId) {
             GoogleAuthProvider.PROVIDER_ID -> {
                 val google = mSupplier.get(GoogleSignInHandler::class.java)
-                google.init(GoogleSignInHandler.Params(identityProviderConfig))
-                provider = google
+                google.init(GoogleSignInHandler.Params(config, email))
+                google
             }
             FacebookAuthProvider.PROVIDER_ID -> {
                 val facebook = mSupplier.get(FacebookSignInHandler::class.java)
-                facebook.init(identityProviderConfig)
-                provider = facebook
+                facebook.init(config)
+                facebook
             }
             TwitterAuthProvider.PROVIDER_ID -> {
                 val twitter = mSupplier.get(TwitterSignInHandler::class.java)
                 twitter.init(null)
-                provider = twitter
+                twitter
             }
             else -> throw IllegalStateException("Unknown provider: $providerId")
         }
-        mSocialProviders.add(provider)
+        mSocialProviders[providerId] = provider
 
         provider.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this) {
             override fun onSuccess(response: IdentityProviderResponse) {
@@ -217,21 +415,46 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
             }
 
             private fun handleResponse(response: IdentityProviderResponse) {
+                mProviderSpan?.end(when {
+                    response.isSuccessful -> SignInSpan.OUTCOME_SUCCESS
+                    response.error is UserCancellationException -> SignInSpan.OUTCOME_CANCELLED
+                    else -> SignInSpan.OUTCOME_FAILURE
+                })
+                mProviderSpan = null
+
                 if (!response.isSuccessful) {
                     // We have no idea what provider this error stemmed from so just forward
                     // this along to the handler.
-                    mSocialHandler.startSignIn(response)
+                    getSocialHandler().startSignIn(response)
                 } else if (AuthUI.SOCIAL_PROVIDERS.contains(providerId)) {
                     // Don't use the response's provider since it can be different than the one
                     // that launched the sign-in attempt. Ex: the email flow is started, but
                     // ends up turning into a Google sign-in because that account already
                     // existed. In the previous example, an extra sign-in would incorrectly
                     // started.
-                    mSocialHandler.startSignIn(response)
+                    getSocialHandler().startSignIn(response)
                 }
             }
         })
+        return provider
+    }
+
+    @StringRes
+    private fun getErrorMessage(exception: Exception): Int {
+        return if (exception is FirebaseAuthInvalidCredentialsException) {
+            R.string.fui_error_invalid_password
+        } else R.string.fui_error_unknown
 
+    }
+
+    private fun snackbarShow(message: String) {
+        Snackbar.make(auth_fragment, message, Snackbar.LENGTH_INDEFINITE)
+                .setAction("ok") {}
+                .apply { view.findViewById<TextView>(com.google.android.material.R.id.snackbar_text).maxLines = 10 }
+                .show()
+    }
+
+    private fun bindSocialProviderButton(providerId: String, view: View) {
         view.setOnClickListener(View.OnClickListener {
             if (isOffline) {
                 Toast.makeText(this@AuthMethodPickerActivity,
@@ -239,17 +462,27 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
                         Toast.LENGTH_SHORT).show()
                 return@OnClickListener
             }
-            provider.startSignIn(this@AuthMethodPickerActivity)
+            startProviderSignIn(getSocialProvider(providerId))
         })
     }
 
+    private fun startProviderSignIn(provider: ProviderSignInBase<*>) {
+        mProviderSpan = SignInTracer.getInstance().start(SignInSpan.PROVIDER_SDK)
+        provider.startSignIn(this)
+    }
+
     override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
         super.onActivityResult(requestCode, resultCode, data)
-        mSocialHandler.onActivityResult(requestCode, resultCode, data)
+        mSocialHandler?.onActivityResult(requestCode, resultCode, data)
 
-        for (provider in mSocialProviders) {
+        for (provider in mSocialProviders.values) {
             provider.onActivityResult(requestCode, resultCode, data)
         }
+
+        if (requestCode == RequestCodes.CRED_HINT) {
+            mMainHandler?.onActivityResult(requestCode, resultCode, data)
+        }
+        mSmartLockHandler?.onActivityResult(requestCode, resultCode)
     }
 
     override fun showProgress(message: Int) {
@@ -289,10 +522,9 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
         }
 
         val response = IdentityProviderResponse.Builder(user).build()
-        mEmailHandler.init(flowParams)
 
         val authCredential = ProviderUtils.getAuthCredential(response)
-        mEmailHandler.startSignIn(response.email!!, password, response, authCredential)
+        getEmailHandler().startSignIn(response.email!!, password, response, authCredential)
     }
 
     override fun onExistingIdpUser(user: User) {
@@ -307,52 +539,20 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
         }
 
         val providerId = user.providerId
-        val config = ProviderUtils.getConfigFromIdps(flowParams.providers, providerId)
-        val provider: ProviderSignInBase<*>
-
-        @StringRes val providerName: Int
-        when (providerId) {
-            GoogleAuthProvider.PROVIDER_ID -> {
-                val google = mSupplier.get(GoogleSignInHandler::class.java)
-                google.init(GoogleSignInHandler.Params(config, user.email))
-                provider = google
-
-                providerName = R.string.fui_idp_name_google
-            }
-            FacebookAuthProvider.PROVIDER_ID -> {
-                val facebook = mSupplier.get(FacebookSignInHandler::class.java)
-                facebook.init(config)
-                provider = facebook
-
-                providerName = R.string.fui_idp_name_facebook
-            }
-            TwitterAuthProvider.PROVIDER_ID -> {
-                val twitter = mSupplier.get(TwitterSignInHandler::class.java)
-                twitter.init(null)
-                provider = twitter
-
-                providerName = R.string.fui_idp_name_twitter
-            }
-            else -> throw IllegalStateException("Invalid provider id: $providerId")
+        if (ProviderUtils.getConfigFromIdps(flowParams.providers, providerId) == null) {
+            throw IllegalStateException("Invalid provider id: $providerId")
         }
 
+        val provider = getSocialProvider(providerId, user.email)
+        val linkingHandler = getSocialLinkingHandler()
+
         provider.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this) {
             override fun onSuccess(response: IdentityProviderResponse) {
-                mSocialLinkingHandler.startSignIn(response)
+                linkingHandler.startSignIn(response)
             }
 
             override fun onFailure(e: Exception) {
-                mSocialLinkingHandler.startSignIn(IdentityProviderResponse.from(e))
-            }
-        })
-
-        mSocialLinkingHandler.operation.observe(this, object : ResourceObserver<IdentityProviderResponse>(this) {
-            override fun onSuccess(response: IdentityProviderResponse) {
-                snackbarShow("Idp : $providerId Success")
-            }
-
-            override fun onFailure(e: java.lang.Exception) {
-                snackbarShow("Idp signin : $providerId cancelled")
+                linkingHandler.startSignIn(IdentityProviderResponse.from(e))
             }
         })
     }
@@ -361,16 +561,22 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
         // TODO switch to sign up fragment
         // New user, direct them to create an account with email/password
         // if account creation is enabled in SignInIntentBuilder
-        mSignUpFragment = SignUpFragment.newInstance(user)
-        switchToSignUp()
+        val fragment = SignUpFragment.newInstance(user)
+        mSignUpFragment = fragment
+        showFragment(fragment, R.id.auth_fragment, SignUpFragment.TAG)
+    }
+
+    private fun newSignInFragment(email: String?): SignInFragment {
+        return SignInFragment.newInstance(User.Builder(EmailAuthProvider.PROVIDER_ID, email).build())
     }
 
     override fun switchToSignIn() {
-        switchFragment(mSignInFragment, R.id.auth_fragment, SignInFragment.TAG)
+        showFragment(mSignInFragment, R.id.auth_fragment, SignInFragment.TAG)
     }
 
     override fun switchToSignUp() {
-        switchFragment(mSignUpFragment, R.id.auth_fragment, SignInFragment.TAG)
+        val fragment = mSignUpFragment ?: SignUpFragment().also { mSignUpFragment = it }
+        showFragment(fragment, R.id.auth_fragment, SignUpFragment.TAG)
     }
 
     override fun forgotPasswordClicked() {
@@ -389,6 +595,11 @@ class AuthMethodPickerActivity : AppCompatBase(), SignInFragment.CheckEmailListe
     }
 
     companion object {
+        private const val KEY_ACTIVE_HANDLERS = "active_handlers"
+        private const val KEY_SOCIAL_HANDLER = "social_handler"
+        private const val KEY_LINKING_HANDLER = "linking_handler"
+        private const val KEY_EMAIL_HANDLER = "email_handler"
+        private const val KEY_SMART_LOCK_HANDLER = "smart_lock_handler"
 
         fun createIntent(context: Context, flowParams: FlowParameters): Intent {
             return HelperActivityBase.createBaseIntent(context, AuthMethodPickerActivity::class.java, flowParams)
@@ -23,9 +23,11 @@ import androidx.annotation.RestrictTo;
 
 public final class ExtraConstants {
     public static final String FLOW_PARAMS = "extra_flow_params";
+    public static final String FLOW_PARAMS_TOKEN = "extra_flow_params_token";
     public static final String IDP_RESPONSE = "extra_idp_response";
     public static final String USER = "extra_user";
     public static final String CREDENTIAL = "extra_credential";
+    public static final String PENDING_INTENT = "extra_pending_intent";
 
     public static final String EMAIL = "extra_email";
     public static final String ALLOW_NEW_EMAILS = "extra_allow_new_emails";
@@ -1,13 +1,18 @@
 package com.firebase.ui.auth.util.data;
 
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.SignInSpan;
 import com.firebase.ui.auth.data.model.FlowParameters;
+import com.google.android.gms.tasks.CancellationToken;
 import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.EmailAuthProvider;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
 import androidx.annotation.*;
 
@@ -51,35 +56,60 @@ public class AuthOperationManager {
         return mScratchAuth;
     }
 
-    public Task<AuthResult> createOrLinkUserWithEmailAndPassword(@NonNull FirebaseAuth auth,
-                                                                 @NonNull String email,
-                                                                 @NonNull String password) {
-             return auth.createUserWithEmailAndPassword(email, password);
-
+    public Task<AuthResult> createOrLinkUserWithEmailAndPassword(@NonNull final FirebaseAuth auth,
+                                                                 @NonNull final String email,
+                                                                 @NonNull final String password) {
+        return SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                EmailAuthProvider.PROVIDER_ID,
+                NetworkTasks.run(auth, NetworkPolicy.CREATE_USER,
+                        () -> auth.createUserWithEmailAndPassword(email, password)));
     }
 
-    public Task<AuthResult> signInAndLinkWithCredential(@NonNull FirebaseAuth auth,
-                                                        @NonNull AuthCredential credential) {
-            return auth.signInWithCredential(credential);
+    public Task<AuthResult> signInAndLinkWithCredential(@NonNull final FirebaseAuth auth,
+                                                        @NonNull final AuthCredential credential) {
+        return SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                credential.getProvider(),
+                NetworkTasks.run(auth, NetworkPolicy.SIGN_IN,
+                        () -> auth.signInWithCredential(credential)));
     }
 
 
     @NonNull
-    public Task<AuthResult> validateCredential(AuthCredential credential,
+    public Task<AuthResult> validateCredential(final AuthCredential credential,
                                                FlowParameters flowParameters) {
-        return getScratchAuth(flowParameters).signInWithCredential(credential);
+        final FirebaseAuth scratchAuth = getScratchAuth(flowParameters);
+        return NetworkTasks.run(NetworkTasks.getPolicy(flowParameters.appName),
+                NetworkPolicy.SIGN_IN,
+                () -> scratchAuth.signInWithCredential(credential));
     }
 
     public Task<AuthResult> safeLink(final AuthCredential credential,
                                      final AuthCredential credentialToLink,
                                      final FlowParameters flowParameters) {
-        return getScratchAuth(flowParameters)
-                .signInWithCredential(credential)
+        return safeLink(credential, credentialToLink, flowParameters, null);
+    }
+
+    public Task<AuthResult> safeLink(final AuthCredential credential,
+                                     final AuthCredential credentialToLink,
+                                     final FlowParameters flowParameters,
+                                     @Nullable final CancellationToken cancellationToken) {
+        final NetworkPolicy policy = NetworkTasks.getPolicy(flowParameters.appName);
+        final FirebaseAuth scratchAuth = getScratchAuth(flowParameters);
+        return NetworkTasks.run(policy, NetworkPolicy.SIGN_IN,
+                () -> scratchAuth.signInWithCredential(credential))
                 .continueWithTask(new Continuation<AuthResult, Task<AuthResult>>() {
                     @Override
                     public Task<AuthResult> then(@NonNull Task<AuthResult> task) throws Exception {
+                        if (cancellationToken != null
+                                && cancellationToken.isCancellationRequested()) {
+                            return Tasks.forCanceled();
+                        }
                         if (task.isSuccessful()) {
-                            return task.getResult().getUser().linkWithCredential(credentialToLink);
+                            final FirebaseUser user = task.getResult().getUser();
+                            return SignInTracer.getInstance().trace(SignInSpan.LINK,
+                                    credentialToLink.getProvider(),
+                                    NetworkTasks.run(policy, NetworkPolicy.LINK,
+                                            () -> user.linkWithCredential(credentialToLink)));
                         }
                         return task;
                     }
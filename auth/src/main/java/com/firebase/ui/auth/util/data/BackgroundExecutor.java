@@ -0,0 +1,65 @@
+package com.firebase.ui.auth.util.data;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.*;
+
+/**
+ * Runs the continuations of the sign-in Task chains so building lists, credentials and
+ * exceptions doesn't happen on the main thread. Results are handed back to the main thread by
+ * {@link com.firebase.ui.auth.viewmodel.OperationChannel}.
+ */
+public final class BackgroundExecutor {
+    /** Continuations are short, the threads only wait on each other for a few microseconds. */
+    private static final int THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile Executor sExecutor;
+    private static Executor sDefaultExecutor;
+
+    private BackgroundExecutor() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    @NonNull
+    public static Executor get() {
+        Executor executor = sExecutor;
+        return executor == null ? getDefault() : executor;
+    }
+
+    /**
+     * Use the given executor for continuations, or the library's own if {@code null}.
+     */
+    public static void set(@Nullable Executor executor) {
+        sExecutor = executor;
+    }
+
+    private static synchronized Executor getDefault() {
+        if (sDefaultExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    THREADS, THREADS,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@NonNull Runnable r) {
+                            Thread thread = new Thread(r,
+                                    "FirebaseUI-Auth-" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            // Don't keep idle threads around between sign-in flows
+            executor.allowCoreThreadTimeOut(true);
+            sDefaultExecutor = executor;
+        }
+        return sDefaultExecutor;
+    }
+}
@@ -2,8 +2,11 @@ package com.firebase.ui.auth.util.data;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Base64;
+import android.util.Log;
 
 import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.data.model.CompactCodec;
 import com.firebase.ui.auth.data.model.User;
 import com.google.android.gms.common.internal.Preconditions;
 
@@ -18,6 +21,7 @@ import androidx.annotation.*;
 /** Manages saving/retrieving from SharedPreferences for email link sign in. */
 
 public class EmailLinkPersistenceManager {
+    private static final String TAG = "EmailLinkPersistence";
 
     private static final String SHARED_PREF_NAME =
             "com.firebase.ui.auth.util.data.EmailLinkPersistenceManager";
@@ -28,10 +32,11 @@ public class EmailLinkPersistenceManager {
     private static final String KEY_IDP_SECRET = "com.firebase.ui.auth.data.client.idpSecret";
     private static final String KEY_ANONYMOUS_USER_ID = "com.firebase.ui.auth.data.client.auid";
     private static final String KEY_SESSION_ID = "com.firebase.ui.auth.data.client.sid";
+    private static final String KEY_IDP_RESPONSE = "com.firebase.ui.auth.data.client.idpResponse";
 
     private static final Set<String> KEYS =
             Collections.unmodifiableSet(new HashSet<>(Arrays.asList(KEY_EMAIL, KEY_PROVIDER,
-                    KEY_IDP_TOKEN, KEY_IDP_SECRET)));
+                    KEY_IDP_TOKEN, KEY_IDP_SECRET, KEY_IDP_RESPONSE)));
 
     private static final EmailLinkPersistenceManager instance = new EmailLinkPersistenceManager();
 
@@ -60,9 +65,12 @@ public class EmailLinkPersistenceManager {
         SharedPreferences.Editor editor =
                 context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE).edit();
         editor.putString(KEY_EMAIL, identityProviderResponseForLinking.getEmail());
-        editor.putString(KEY_PROVIDER, identityProviderResponseForLinking.getProviderType());
-        editor.putString(KEY_IDP_TOKEN, identityProviderResponseForLinking.getIdpToken());
-        editor.putString(KEY_IDP_SECRET, identityProviderResponseForLinking.getIdpSecret());
+        editor.putString(KEY_IDP_RESPONSE, Base64.encodeToString(
+                identityProviderResponseForLinking.toBytes(), Base64.NO_WRAP));
+        // Written by older versions, the encoded response replaces them
+        editor.remove(KEY_PROVIDER);
+        editor.remove(KEY_IDP_TOKEN);
+        editor.remove(KEY_IDP_SECRET);
         editor.apply();
     }
 
@@ -77,23 +85,55 @@ public class EmailLinkPersistenceManager {
             return null;
         }
         String anonymousUserId = sharedPreferences.getString(KEY_ANONYMOUS_USER_ID, null);
-        String provider = sharedPreferences.getString(KEY_PROVIDER, null);
-        String idpToken = sharedPreferences.getString(KEY_IDP_TOKEN, null);
-        String idpSecret = sharedPreferences.getString(KEY_IDP_SECRET, null);
 
         SessionRecord sessionRecord = new SessionRecord(sessionId, anonymousUserId).setEmail(email);
-        if (provider != null && idpToken != null) {
-            IdentityProviderResponse response = new IdentityProviderResponse.Builder(
-                        new User.Builder(provider, email).build())
-                    .setToken(idpToken)
-                    .setSecret(idpSecret)
-                    .setNewUser(false)
-                    .build();
+        IdentityProviderResponse response = decodeResponse(sharedPreferences);
+        if (response == null) {
+            response = readLegacyResponse(sharedPreferences, email);
+        }
+        if (response != null) {
             sessionRecord.setIdentityProviderResponseForLinking(response);
         }
         return sessionRecord;
     }
 
+    @Nullable
+    private static IdentityProviderResponse decodeResponse(SharedPreferences sharedPreferences) {
+        String encoded = sharedPreferences.getString(KEY_IDP_RESPONSE, null);
+        if (encoded == null) { return null; }
+
+        IdentityProviderResponse response;
+        try {
+            response = IdentityProviderResponse.fromBytes(Base64.decode(encoded, Base64.NO_WRAP));
+        } catch (IllegalArgumentException e) {
+            // Corrupted or written by a newer version
+            Log.w(TAG, "Couldn't decode the saved response", e);
+            return null;
+        }
+
+        // Held to the same rules as legacy responses: a user we link to is never new
+        if (!response.isSuccessful() || response.getIdpToken() == null) { return null; }
+        return response.mutate().setNewUser(false).build();
+    }
+
+    /**
+     * Read a response saved as separate strings before {@link CompactCodec} was used.
+     */
+    @Nullable
+    private static IdentityProviderResponse readLegacyResponse(SharedPreferences sharedPreferences,
+                                                               String email) {
+        String provider = sharedPreferences.getString(KEY_PROVIDER, null);
+        String idpToken = sharedPreferences.getString(KEY_IDP_TOKEN, null);
+        String idpSecret = sharedPreferences.getString(KEY_IDP_SECRET, null);
+        if (provider == null || idpToken == null) { return null; }
+
+        return new IdentityProviderResponse.Builder(new User.Builder(provider, email).build())
+                .setToken(idpToken)
+                .setSecret(idpSecret)
+                .setNewUser(false)
+                .build();
+    }
+
     public void clearAllData(@NonNull Context context) {
         Preconditions.checkNotNull(context);
         SharedPreferences sharedPreferences =
@@ -0,0 +1,138 @@
+package com.firebase.ui.auth.util.data;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.TextView;
+
+import androidx.annotation.*;
+
+/**
+ * Checks the syntax of email addresses one character at a time, accepting the same addresses as
+ * {@link android.util.Patterns#EMAIL_ADDRESS}:
+ * <pre>
+ *     [a-zA-Z0-9+._%-]{1,256} @ [a-zA-Z0-9][a-zA-Z0-9-]{0,64} (. [a-zA-Z0-9][a-zA-Z0-9-]{0,25})+
+ * </pre>
+ * The whole state of the automaton fits in an {@code int}: the low bits hold the current part of
+ * the address and the high bits the length of that part. Nothing is allocated while checking.
+ */
+public final class EmailSyntaxAutomaton {
+    private static final int STATE_BITS = 4;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+
+    private static final int START = 0;
+    private static final int LOCAL = 1;
+    private static final int AT = 2;
+    private static final int HOST = 3;
+    private static final int DOT = 4;
+    private static final int LABEL = 5;
+    private static final int DEAD = 6;
+
+    private static final int LOCAL_MAX_LENGTH = 256;
+    /** Characters allowed after the first one of each domain label. */
+    private static final int HOST_MAX_EXTRA = 64;
+    private static final int LABEL_MAX_EXTRA = 25;
+
+    private EmailSyntaxAutomaton() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    public static boolean matches(@Nullable CharSequence email) {
+        if (email == null) { return false; }
+
+        int state = START;
+        for (int i = 0, length = email.length(); i < length && state != DEAD; i++) {
+            state = step(state, email.charAt(i));
+        }
+        return isAccepting(state);
+    }
+
+    /**
+     * @return the state reached from {@code state} on reading {@code c}
+     */
+    static int step(int state, char c) {
+        int count = state >>> STATE_BITS;
+        switch (state & STATE_MASK) {
+            case START:
+                return isLocalChar(c) ? of(LOCAL, 1) : DEAD;
+            case LOCAL:
+                if (c == '@') { return AT; }
+                return isLocalChar(c) && count < LOCAL_MAX_LENGTH ? of(LOCAL, count + 1) : DEAD;
+            case AT:
+                return isAlphanumeric(c) ? HOST : DEAD;
+            case HOST:
+                if (c == '.') { return DOT; }
+                return isLabelChar(c) && count < HOST_MAX_EXTRA ? of(HOST, count + 1) : DEAD;
+            case DOT:
+                return isAlphanumeric(c) ? LABEL : DEAD;
+            case LABEL:
+                if (c == '.') { return DOT; }
+                return isLabelChar(c) && count < LABEL_MAX_EXTRA ? of(LABEL, count + 1) : DEAD;
+            default:
+                return DEAD;
+        }
+    }
+
+    static boolean isAccepting(int state) {
+        return (state & STATE_MASK) == LABEL;
+    }
+
+    private static int of(int state, int count) {
+        return count << STATE_BITS | state;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+
+    private static boolean isLabelChar(char c) {
+        return isAlphanumeric(c) || c == '-';
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isAlphanumeric(c) || c == '+' || c == '.' || c == '_' || c == '%' || c == '-';
+    }
+
+    /**
+     * Keeps the syntax of a field's text up to date as it's edited. Typing at the end of the text
+     * costs one step per character, other edits check the text again from the start.
+     */
+    public static final class Watcher implements TextWatcher {
+        private int mState = START;
+        private int mLength;
+
+        /**
+         * Start following the text of {@code view}, including what it already holds.
+         */
+        @NonNull
+        public static Watcher watch(@NonNull TextView view) {
+            Watcher watcher = new Watcher();
+            CharSequence text = view.getText();
+            watcher.onTextChanged(text, 0, 0, text.length());
+            view.addTextChangedListener(watcher);
+            return watcher;
+        }
+
+        public boolean isValid() {
+            return isAccepting(mState);
+        }
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+            if (before != 0 || start != mLength) {
+                mState = START;
+                start = 0;
+                count = s.length();
+            }
+            for (int i = start, end = start + count; i < end && mState != DEAD; i++) {
+                mState = step(mState, s.charAt(i));
+            }
+            mLength = s.length();
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {}
+    }
+}
@@ -0,0 +1,88 @@
+package com.firebase.ui.auth.util.data;
+
+import com.firebase.ui.auth.SignInStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import androidx.annotation.*;
+
+/**
+ * A fixed size histogram of latencies that can be recorded to from any thread without locking
+ * or allocating.
+ * <p>
+ * Values are kept in microseconds in log-linear buckets: each power of two is split into
+ * {@link #SUB_BUCKETS} buckets, so any percentile is reported within 25% of its true value.
+ * Values above ~71 minutes land in the last bucket.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    @VisibleForTesting static final int BUCKETS = 128;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalMicros = new AtomicLong();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0);
+
+        mBuckets.incrementAndGet(bucketOf(micros));
+        mCount.incrementAndGet();
+        mTotalMicros.addAndGet(micros);
+
+        long max = mMaxMicros.get();
+        while (micros > max && !mMaxMicros.compareAndSet(max, micros)) {
+            max = mMaxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Copy the current state of the histogram. Concurrent records may or may not be included.
+     */
+    @NonNull
+    public SignInStats.Latency snapshot(@NonNull String stage, @Nullable String providerId) {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = mBuckets.get(i);
+            count += buckets[i];
+        }
+        long max = mMaxMicros.get();
+        long mean = count == 0 ? 0 : mTotalMicros.get() / count;
+
+        long[] upperBounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            upperBounds[i] = Math.min(upperBoundOf(i), max);
+        }
+        return new SignInStats.Latency(stage, providerId, count, mean, max, buckets, upperBounds);
+    }
+
+    @VisibleForTesting
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) { return (int) micros; }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min((magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    /**
+     * Get the largest value that is counted in the given bucket.
+     */
+    @VisibleForTesting
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) { return bucket; }
+        if (bucket == BUCKETS - 1) { return Long.MAX_VALUE; }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,153 @@
+package com.firebase.ui.auth.util.data;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.*;
+
+/**
+ * Keeps track of whether the device is online for the whole process, so checking it is a field
+ * read instead of a round trip to the connectivity service.
+ * <p>
+ * The state follows the networks a {@link ConnectivityManager.NetworkCallback} reports as
+ * available, or connectivity broadcasts before Lollipop. Work that can wait for the network, like profile updates after
+ * sign-in, can be handed to {@link #runWhenOnline} instead of failing while offline.
+ */
+public final class NetworkMonitor {
+    private static final String TAG = "NetworkMonitor";
+
+    @SuppressLint("StaticFieldLeak") // Application context
+    private static volatile NetworkMonitor sInstance;
+
+    private final ConnectivityManager mManager;
+    private final List<Runnable> mPending = new ArrayList<>();
+    private volatile boolean mOnline;
+
+    private NetworkMonitor(Context context) {
+        mManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        update(isConnected());
+        if (mManager != null) { register(context); }
+    }
+
+    @NonNull
+    public static NetworkMonitor getInstance(@NonNull Context context) {
+        NetworkMonitor instance = sInstance;
+        if (instance == null) {
+            synchronized (NetworkMonitor.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    instance = new NetworkMonitor(context.getApplicationContext());
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    public static void reset() {
+        sInstance = null;
+    }
+
+    /**
+     * @return true if there is an active or soon-to-be-active network connection
+     */
+    public boolean isOnline() {
+        return mOnline;
+    }
+
+    /**
+     * Run {@code work} on the {@link BackgroundExecutor} now if online, or once the device is back
+     * online otherwise. Queued work is lost with the process.
+     */
+    public void runWhenOnline(@NonNull Runnable work) {
+        synchronized (mPending) {
+            if (!mOnline) {
+                mPending.add(work);
+                return;
+            }
+        }
+        BackgroundExecutor.get().execute(work);
+    }
+
+    @SuppressWarnings("deprecation") // Only read on start and for broadcasts before Lollipop
+    private boolean isConnected() {
+        NetworkInfo info = mManager == null ? null : mManager.getActiveNetworkInfo();
+        return info != null && info.isConnectedOrConnecting();
+    }
+
+    private void update(boolean online) {
+        List<Runnable> ready = null;
+        synchronized (mPending) {
+            mOnline = online;
+            if (online && !mPending.isEmpty()) {
+                ready = new ArrayList<>(mPending);
+                mPending.clear();
+            }
+        }
+        if (ready != null) {
+            for (Runnable work : ready) {
+                BackgroundExecutor.get().execute(work);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation") // CONNECTIVITY_ACTION is only used before Lollipop
+    private void register(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            NetworkRequest request = new NetworkRequest.Builder()
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build();
+            try {
+                mManager.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+                    // The active network info can still report a network that was just lost
+                    private final Set<Network> mAvailable = new HashSet<>();
+
+                    @Override
+                    public void onAvailable(Network network) {
+                        synchronized (mAvailable) {
+                            mAvailable.add(network);
+                        }
+                        update(true);
+                    }
+
+                    @Override
+                    public void onLost(Network network) {
+                        boolean online;
+                        synchronized (mAvailable) {
+                            mAvailable.remove(network);
+                            online = !mAvailable.isEmpty();
+                        }
+                        update(online);
+                    }
+                });
+                return;
+            } catch (RuntimeException e) {
+                // Some devices throw a SecurityException here, fall back to broadcasts
+                Log.w(TAG, "Could not register a network callback", e);
+            }
+        }
+
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                update(isConnected());
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+}
@@ -0,0 +1,170 @@
+package com.firebase.ui.auth.util.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import androidx.annotation.*;
+
+/**
+ * Runs network calls with the timeout and retries described by a {@link NetworkPolicy}.
+ */
+public final class NetworkTasks {
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+    private static final Random RANDOM = new Random();
+
+    private NetworkTasks() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    /**
+     * A network call that can be started again if it needs to be retried.
+     */
+    public interface Call<T> {
+        @NonNull
+        Task<T> start();
+    }
+
+    @NonNull
+    public static NetworkPolicy getPolicy(@Nullable FirebaseAuth auth) {
+        FirebaseApp app = auth == null ? null : auth.getApp();
+        return app == null ? NetworkPolicy.DEFAULT : AuthUI.getInstance(app).getNetworkPolicy();
+    }
+
+    @NonNull
+    public static NetworkPolicy getPolicy(@NonNull String appName) {
+        return AuthUI.getInstance(FirebaseApp.getInstance(appName)).getNetworkPolicy();
+    }
+
+    /**
+     * @see #run(NetworkPolicy, String, Call)
+     */
+    @NonNull
+    public static <T> Task<T> run(@Nullable FirebaseAuth auth,
+                                  @NetworkPolicy.Operation @NonNull String operation,
+                                  @NonNull Call<T> call) {
+        return run(getPolicy(auth), operation, call);
+    }
+
+    /**
+     * Start the call, failing it with a {@link FirebaseNetworkException} if it doesn't complete
+     * in time and retrying it after a backoff while it fails with a retryable error.
+     * <p>
+     * Account creation and linking are never timed out: they may succeed on the server after we
+     * gave up on them, and the user would then be stuck with an account the flow never saw.
+     */
+    @NonNull
+    public static <T> Task<T> run(@NonNull NetworkPolicy policy,
+                                  @NetworkPolicy.Operation @NonNull String operation,
+                                  @NonNull Call<T> call) {
+        CancellationTokenSource cancellation = new CancellationTokenSource();
+        TaskCompletionSource<T> source = new TaskCompletionSource<>(cancellation.getToken());
+        attempt(policy, operation, call, source, cancellation, 0);
+        return source.getTask();
+    }
+
+    /**
+     * Whether a failed operation has a chance of succeeding if it is tried again.
+     */
+    public static boolean isRetryable(@Nullable Exception e) {
+        if (e instanceof FirebaseNetworkException) {
+            return true;
+        } else if (e instanceof ResolvableApiException) {
+            // Needs the user, not a retry
+            return false;
+        } else if (e instanceof ApiException) {
+            int code = ((ApiException) e).getStatusCode();
+            return code == CommonStatusCodes.NETWORK_ERROR
+                    || code == CommonStatusCodes.TIMEOUT
+                    || code == CommonStatusCodes.INTERNAL_ERROR;
+        }
+        return false;
+    }
+
+    private static <T> void attempt(final NetworkPolicy policy,
+                                    final String operation,
+                                    final Call<T> call,
+                                    final TaskCompletionSource<T> source,
+                                    final CancellationTokenSource cancellation,
+                                    final int retry) {
+        // A late result from an earlier attempt may have beaten this retry
+        if (source.getTask().isComplete()) { return; }
+
+        final AtomicBoolean settled = new AtomicBoolean();
+        final Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                if (settled.compareAndSet(false, true)) {
+                    onFailure(policy, operation, call, source, cancellation, retry,
+                            new FirebaseNetworkException("Timed out: " + operation));
+                }
+            }
+        };
+        if (isIdempotent(operation)) {
+            HANDLER.postDelayed(timeout, policy.getTimeoutMillis(operation));
+        }
+
+        call.start().addOnCompleteListener(new OnCompleteListener<T>() {
+            @Override
+            public void onComplete(@NonNull Task<T> task) {
+                if (!settled.compareAndSet(false, true)) {
+                    // Timed out, but a success is still worth delivering if we're retrying
+                    if (task.isSuccessful()) { source.trySetResult(task.getResult()); }
+                    return;
+                }
+                HANDLER.removeCallbacks(timeout);
+
+                if (task.isSuccessful()) {
+                    source.trySetResult(task.getResult());
+                } else if (task.isCanceled()) {
+                    cancellation.cancel();
+                } else {
+                    onFailure(policy, operation, call, source, cancellation, retry,
+                            task.getException());
+                }
+            }
+        });
+    }
+
+    private static boolean isIdempotent(String operation) {
+        return !NetworkPolicy.CREATE_USER.equals(operation)
+                && !NetworkPolicy.LINK.equals(operation);
+    }
+
+    private static <T> void onFailure(final NetworkPolicy policy,
+                                      final String operation,
+                                      final Call<T> call,
+                                      final TaskCompletionSource<T> source,
+                                      final CancellationTokenSource cancellation,
+                                      final int retry,
+                                      Exception e) {
+        if (retry >= policy.getMaxRetries(operation) || !isRetryable(e)) {
+            source.trySetException(e);
+            return;
+        }
+
+        long backoff = policy.getBackoffMillis(retry);
+        long delay = backoff - (long) (backoff * policy.getJitter() * RANDOM.nextDouble());
+        HANDLER.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                attempt(policy, operation, call, source, cancellation, retry + 1);
+            }
+        }, delay);
+    }
+}
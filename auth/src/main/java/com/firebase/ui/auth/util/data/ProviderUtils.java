@@ -20,8 +20,11 @@ import com.firebase.ui.auth.AuthUI;
 import com.firebase.ui.auth.ErrorCodes;
 import com.firebase.ui.auth.FirebaseUiException;
 import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.SignInSpan;
 import com.firebase.ui.auth.data.model.FlowParameters;
 import com.google.android.gms.auth.api.credentials.IdentityProviders;
+import com.google.android.gms.tasks.CancellationToken;
 import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
@@ -142,14 +145,33 @@ public final class ProviderUtils {
     public static Task<List<String>> fetchSortedProviders(@NonNull FirebaseAuth auth,
                                                           @NonNull final FlowParameters params,
                                                           @NonNull String email) {
+        return fetchSortedProviders(auth, params, email, null);
+    }
+
+    /**
+     * @param cancellationToken if cancelled, no lookup is started and the returned task is
+     *                          cancelled
+     */
+    public static Task<List<String>> fetchSortedProviders(@NonNull final FirebaseAuth auth,
+                                                          @NonNull final FlowParameters params,
+                                                          @NonNull final String email,
+                                                          @Nullable final CancellationToken cancellationToken) {
+        if (isCanceled(cancellationToken)) {
+            return Tasks.forCanceled();
+        }
         if (TextUtils.isEmpty(email)) {
             return Tasks.forException(new NullPointerException("Email cannot be empty"));
         }
 
-        return auth.fetchSignInMethodsForEmail(email)
-                .continueWithTask(new Continuation<SignInMethodQueryResult, Task<List<String>>>() {
+        return SignInTracer.getInstance().trace(SignInSpan.PROVIDER_LOOKUP,
+                NetworkTasks.run(auth, NetworkPolicy.FETCH_SIGN_IN_METHODS,
+                        () -> auth.fetchSignInMethodsForEmail(email)))
+                .continueWithTask(BackgroundExecutor.get(), new Continuation<SignInMethodQueryResult, Task<List<String>>>() {
                     @Override
                     public Task<List<String>> then(@NonNull Task<SignInMethodQueryResult> task) {
+                        if (isCanceled(cancellationToken)) {
+                            return Tasks.forCanceled();
+                        }
                         List<String> methods = task.getResult().getSignInMethods();
                         if (methods == null) {
                             methods = new ArrayList<>();
@@ -203,8 +225,19 @@ public final class ProviderUtils {
             @NonNull FirebaseAuth auth,
             @NonNull FlowParameters params,
             @NonNull String email) {
-        return fetchSortedProviders(auth, params, email)
-                .continueWithTask(task -> {
+        return fetchTopProvider(auth, params, email, null);
+    }
+
+    public static Task<String> fetchTopProvider(
+            @NonNull FirebaseAuth auth,
+            @NonNull FlowParameters params,
+            @NonNull String email,
+            @Nullable CancellationToken cancellationToken) {
+        return fetchSortedProviders(auth, params, email, cancellationToken)
+                .continueWithTask(BackgroundExecutor.get(), task -> {
+                    if (task.isCanceled()) {
+                        return Tasks.forCanceled();
+                    }
                     if (!task.isSuccessful()) {
                         return Tasks.forException(task.getException());
                     }
@@ -217,4 +250,8 @@ public final class ProviderUtils {
                     }
                 });
     }
+
+    private static boolean isCanceled(@Nullable CancellationToken token) {
+        return token != null && token.isCancellationRequested();
+    }
 }
@@ -0,0 +1,88 @@
+package com.firebase.ui.auth.util.data;
+
+import com.firebase.ui.auth.SignInSpan;
+import com.firebase.ui.auth.SignInStats;
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.FacebookAuthProvider;
+import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.TwitterAuthProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.*;
+
+/**
+ * Aggregates the latencies of sign-in stages per provider in preallocated histograms so that
+ * recording never allocates.
+ */
+public final class SignInStatsRecorder {
+    private static final SignInStatsRecorder INSTANCE = new SignInStatsRecorder();
+
+    private static final String[] STAGES = {
+            SignInSpan.PROVIDER_LOOKUP,
+            SignInSpan.FIREBASE_SIGN_IN,
+            SignInSpan.LINK,
+            SignInSpan.FLOW
+    };
+    // The last slot collects unknown and unsupported providers
+    private static final String[] PROVIDERS = {
+            GoogleAuthProvider.PROVIDER_ID,
+            FacebookAuthProvider.PROVIDER_ID,
+            TwitterAuthProvider.PROVIDER_ID,
+            EmailAuthProvider.PROVIDER_ID,
+            null
+    };
+
+    private final LatencyHistogram[][] mHistograms =
+            new LatencyHistogram[STAGES.length][PROVIDERS.length];
+
+    @VisibleForTesting
+    SignInStatsRecorder() {
+        for (LatencyHistogram[] stage : mHistograms) {
+            for (int i = 0; i < stage.length; i++) {
+                stage[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    public static SignInStatsRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a successful stage. Stages that aren't aggregated are ignored.
+     */
+    public void record(@SignInSpan.Stage @NonNull String stage,
+                       @Nullable String providerId,
+                       long nanos) {
+        int stageIndex = indexOf(STAGES, stage);
+        if (stageIndex == -1) { return; }
+
+        int providerIndex = indexOf(PROVIDERS, providerId);
+        if (providerIndex == -1) { providerIndex = PROVIDERS.length - 1; }
+
+        mHistograms[stageIndex][providerIndex].record(nanos);
+    }
+
+    @NonNull
+    public SignInStats snapshot() {
+        List<SignInStats.Latency> latencies = new ArrayList<>();
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            for (int provider = 0; provider < PROVIDERS.length; provider++) {
+                LatencyHistogram histogram = mHistograms[stage][provider];
+                if (histogram.getCount() > 0) {
+                    latencies.add(histogram.snapshot(STAGES[stage], PROVIDERS[provider]));
+                }
+            }
+        }
+        return new SignInStats(latencies);
+    }
+
+    private static int indexOf(String[] values, @Nullable String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null ? value == null : values[i].equals(value)) { return i; }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,182 @@
+package com.firebase.ui.auth.util.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.SignInSpan;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.*;
+
+/**
+ * Times the stages of sign-in flows and reports them to the {@link AuthUI.MetricsListener}.
+ * Successful stages are also aggregated by the {@link SignInStatsRecorder} once stats are enabled.
+ * Tracing costs nothing while neither is on.
+ * <p>
+ * Stages of the same flow share the trace id of the most recently started flow. Only one
+ * sign-in flow runs at a time so this is enough to group them without threading ids through
+ * every activity and view model.
+ */
+public final class SignInTracer {
+    private static final SignInTracer INSTANCE = new SignInTracer();
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    private final AtomicLong mTraceIds = new AtomicLong();
+    private final AtomicLong mFlowStartNanos = new AtomicLong();
+    private final SignInStatsRecorder mStats;
+
+    private volatile AuthUI.MetricsListener mListener;
+    private volatile boolean mStatsEnabled;
+    private volatile long mTraceId;
+
+    private SignInTracer() {
+        this(SignInStatsRecorder.getInstance());
+    }
+
+    @VisibleForTesting
+    SignInTracer(SignInStatsRecorder stats) {
+        mStats = stats;
+    }
+
+    public static SignInTracer getInstance() {
+        return INSTANCE;
+    }
+
+    public void setListener(@Nullable AuthUI.MetricsListener listener) {
+        mListener = listener;
+    }
+
+    public boolean isEnabled() {
+        return mListener != null;
+    }
+
+    public void setStatsEnabled(boolean enabled) {
+        mStatsEnabled = enabled;
+    }
+
+    public boolean isStatsEnabled() {
+        return mStatsEnabled;
+    }
+
+    /**
+     * Start a new sign-in flow. Stages started afterwards are grouped under it.
+     */
+    @NonNull
+    public Span startFlow() {
+        mTraceId = mTraceIds.incrementAndGet();
+        mFlowStartNanos.set(System.nanoTime());
+        return start(SignInSpan.FLOW);
+    }
+
+    /**
+     * Record the time it took the current flow to sign the user in. Only the first call after
+     * the flow was started is recorded.
+     */
+    public void onSignedIn(@Nullable String providerId) {
+        long start = mFlowStartNanos.getAndSet(0);
+        if (start != 0 && mStatsEnabled) {
+            mStats.record(SignInSpan.FLOW, providerId, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Start timing a stage of the current flow. Returns an inert span if tracing is disabled.
+     */
+    @NonNull
+    public Span start(@SignInSpan.Stage @NonNull String stage) {
+        if (!isEnabled()) { return Span.NO_OP; }
+        return new Span(this, mTraceId, stage, System.nanoTime());
+    }
+
+    /**
+     * Time a stage that completes with the given task.
+     */
+    @NonNull
+    public <T> Task<T> trace(@SignInSpan.Stage @NonNull String stage, @NonNull Task<T> task) {
+        return trace(stage, null, task);
+    }
+
+    /**
+     * Time a stage that completes with the given task, aggregating its latency under the given
+     * provider if it succeeds. The task is returned untouched if tracing and stats are disabled.
+     */
+    @NonNull
+    public <T> Task<T> trace(@SignInSpan.Stage @NonNull final String stage,
+                             @Nullable final String providerId,
+                             @NonNull Task<T> task) {
+        final boolean stats = mStatsEnabled;
+        if (!stats && !isEnabled()) { return task; }
+
+        final Span span = start(stage);
+        final long start = System.nanoTime();
+        task.addOnCompleteListener(new OnCompleteListener<T>() {
+            @Override
+            public void onComplete(@NonNull Task<T> task) {
+                if (stats && task.isSuccessful()) {
+                    mStats.record(stage, providerId, System.nanoTime() - start);
+                }
+                span.end(task);
+            }
+        });
+        return task;
+    }
+
+    private void report(final SignInSpan span) {
+        final AuthUI.MetricsListener listener = mListener;
+        if (listener == null) { return; }
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            listener.onSpan(span);
+        } else {
+            HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onSpan(span);
+                }
+            });
+        }
+    }
+
+    /**
+     * A stage that has been started and is reported once it ends.
+     */
+    public static final class Span {
+        static final Span NO_OP = new Span(null, 0, SignInSpan.FLOW, 0);
+
+        private final SignInTracer mTracer;
+        private final long mTraceId;
+        private final String mStage;
+        private final long mStartNanos;
+        private final AtomicBoolean mEnded = new AtomicBoolean();
+
+        Span(@Nullable SignInTracer tracer, long traceId, String stage, long startNanos) {
+            mTracer = tracer;
+            mTraceId = traceId;
+            mStage = stage;
+            mStartNanos = startNanos;
+        }
+
+        /**
+         * End the stage. Only the first call has an effect.
+         */
+        public void end(@SignInSpan.Outcome int outcome) {
+            if (mTracer == null || !mEnded.compareAndSet(false, true)) { return; }
+            mTracer.report(new SignInSpan(mTraceId, mStage, mStartNanos, System.nanoTime(), outcome));
+        }
+
+        public void end(@NonNull Task<?> task) {
+            if (task.isSuccessful()) {
+                end(SignInSpan.OUTCOME_SUCCESS);
+            } else if (task.isCanceled()) {
+                end(SignInSpan.OUTCOME_CANCELLED);
+            } else {
+                end(SignInSpan.OUTCOME_FAILURE);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.firebase.ui.auth.util.ui;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.*;
+import androidx.browser.customtabs.CustomTabsClient;
+import androidx.browser.customtabs.CustomTabsIntent;
+import androidx.browser.customtabs.CustomTabsService;
+import androidx.browser.customtabs.CustomTabsServiceConnection;
+import androidx.browser.customtabs.CustomTabsSession;
+
+/**
+ * Keeps one Custom Tabs session for the whole process so links opened from the sign-in screens
+ * don't pay for starting the browser and fetching the page from scratch.
+ * <p>
+ * The browser is bound and warmed up the first time a screen announces the urls it may open,
+ * the urls are then prefetched with {@link CustomTabsSession#mayLaunchUrl}. Must be used on the
+ * main thread.
+ */
+public final class CustomTabsSessionManager {
+    private static CustomTabsSessionManager sInstance;
+
+    private CustomTabsSession mSession;
+    private boolean mBinding;
+    @Nullable private Context mBoundContext;
+    private List<Uri> mPendingUrls;
+
+    private final CustomTabsServiceConnection mConnection = new CustomTabsServiceConnection() {
+        @Override
+        public void onCustomTabsServiceConnected(@NonNull ComponentName name,
+                                                 @NonNull CustomTabsClient client) {
+            client.warmup(0);
+            mSession = client.newSession(null);
+            if (mPendingUrls != null) {
+                List<Uri> urls = mPendingUrls;
+                mPendingUrls = null;
+                prefetch(urls);
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // The browser died. Android would rebind this connection once it restarts, drop it
+            // instead so the next screen asking for it gets a fresh binding.
+            mSession = null;
+            mBinding = false;
+            if (mBoundContext != null) {
+                mBoundContext.unbindService(this);
+                mBoundContext = null;
+            }
+        }
+    };
+
+    private CustomTabsSessionManager() {}
+
+    public static CustomTabsSessionManager getInstance() {
+        if (sInstance == null) {
+            sInstance = new CustomTabsSessionManager();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    public static void reset() {
+        sInstance = null;
+    }
+
+    /**
+     * Announce the urls a screen may open, most likely first. Empty urls are ignored.
+     */
+    public void mayLaunchUrls(@NonNull Context context, @Nullable String... urls) {
+        List<Uri> uris = new ArrayList<>();
+        if (urls != null) {
+            for (String url : urls) {
+                if (!TextUtils.isEmpty(url)) { uris.add(Uri.parse(url)); }
+            }
+        }
+        if (uris.isEmpty()) { return; }
+
+        if (mSession == null) {
+            mPendingUrls = uris;
+            bind(context);
+        } else {
+            prefetch(uris);
+        }
+    }
+
+    public boolean hasSession() {
+        return mSession != null;
+    }
+
+    /**
+     * Build an intent attached to the shared session if there is one, so the browser reuses
+     * what it prefetched.
+     */
+    @NonNull
+    public CustomTabsIntent.Builder newIntentBuilder() {
+        return mSession == null
+                ? new CustomTabsIntent.Builder()
+                : new CustomTabsIntent.Builder(mSession);
+    }
+
+    private void bind(Context context) {
+        if (mBinding) { return; }
+
+        Context appContext = context.getApplicationContext();
+        String browser = CustomTabsClient.getPackageName(appContext, null);
+        // No browser supporting Custom Tabs, links will open in a regular browser
+        if (browser == null) { return; }
+
+        try {
+            mBinding = CustomTabsClient.bindCustomTabsService(appContext, browser, mConnection);
+        } catch (SecurityException e) {
+            mBinding = false;
+        }
+        if (mBinding) { mBoundContext = appContext; }
+    }
+
+    private void prefetch(List<Uri> urls) {
+        List<Bundle> others = null;
+        if (urls.size() > 1) {
+            others = new ArrayList<>(urls.size() - 1);
+            for (Uri url : urls.subList(1, urls.size())) {
+                Bundle bundle = new Bundle();
+                bundle.putParcelable(CustomTabsService.KEY_URL, url);
+                others.add(bundle);
+            }
+        }
+        mSession.mayLaunchUrl(urls.get(0), null, others);
+    }
+}
@@ -0,0 +1,91 @@
+package com.firebase.ui.auth.util.ui;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.*;
+import androidx.appcompat.content.res.AppCompatResources;
+
+/**
+ * Process-wide cache of the {@link Drawable.ConstantState} of our icons, so every button showing
+ * the same icon shares its parsed, rasterized state instead of inflating it again.
+ * <p>
+ * States are keyed by resource id, screen density and night mode. Our screens all use the
+ * FirebaseUI theme, night mode being the only part of it that changes what an icon looks like.
+ * Safe to use from any thread, views may be inflated in the background.
+ */
+public final class DrawableCache {
+    private static final DrawableCache INSTANCE = new DrawableCache();
+
+    private final Map<Long, Drawable.ConstantState> mStates = new HashMap<>();
+    private int mHits;
+    private int mMisses;
+
+    private DrawableCache() {}
+
+    public static DrawableCache getInstance() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    public Drawable get(@NonNull Context context, @DrawableRes int id) {
+        Resources resources = context.getResources();
+        long key = getKey(resources, id);
+
+        Drawable.ConstantState state;
+        synchronized (mStates) {
+            state = mStates.get(key);
+            if (state == null) {
+                mMisses++;
+            } else {
+                mHits++;
+            }
+        }
+        if (state != null) {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                    ? state.newDrawable(resources, context.getTheme())
+                    : state.newDrawable(resources);
+        }
+
+        Drawable drawable = AppCompatResources.getDrawable(context, id);
+        if (drawable != null && drawable.getConstantState() != null) {
+            synchronized (mStates) {
+                mStates.put(key, drawable.getConstantState());
+            }
+        }
+        return drawable;
+    }
+
+    public int getHitCount() {
+        synchronized (mStates) {
+            return mHits;
+        }
+    }
+
+    public int getMissCount() {
+        synchronized (mStates) {
+            return mMisses;
+        }
+    }
+
+    @VisibleForTesting
+    public void clear() {
+        synchronized (mStates) {
+            mStates.clear();
+            mHits = 0;
+            mMisses = 0;
+        }
+    }
+
+    private static long getKey(Resources resources, @DrawableRes int id) {
+        int density = resources.getDisplayMetrics().densityDpi;
+        int nightMode = resources.getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
+        return (long) id << 32 | (long) density << 8 | nightMode;
+    }
+}
@@ -0,0 +1,146 @@
+package com.firebase.ui.auth.util.ui;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
+
+import androidx.annotation.*;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.appcompat.view.ContextThemeWrapper;
+import androidx.core.view.LayoutInflaterCompat;
+
+/**
+ * Inflates layouts on a background thread ahead of the screens that show them, e.g. the auth
+ * method picker and its email fragments while the Play Services check is running.
+ * <p>
+ * Views are inflated like the activity would: with its configuration (night mode, locale) and
+ * through its AppCompat view factory. Their context is a {@link MutableContextWrapper} around the
+ * application context which is moved onto the activity using them in {@link #take}. Each view is
+ * only handed out once, screens inflate their layout themselves when none is ready. Layouts
+ * using {@code android:theme} shouldn't be pre-inflated since AppCompat's factory isn't safe to
+ * share with the main thread for those. Must be used on the main thread.
+ */
+public final class LayoutPreInflater {
+    private static final String TAG = "LayoutPreInflater";
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    private static LayoutPreInflater sInstance;
+
+    private final SparseArray<View> mViews = new SparseArray<>();
+    private final SparseArray<Boolean> mPending = new SparseArray<>();
+    /** Bumped by {@link #clear()} so inflations still running then are dropped. */
+    private int mGeneration;
+
+    private LayoutPreInflater() {}
+
+    public static LayoutPreInflater getInstance() {
+        if (sInstance == null) {
+            sInstance = new LayoutPreInflater();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Start inflating the given layouts for the activity's flow with the theme its screens use,
+     * skipping those that are already inflated or being inflated. Their layout params are
+     * generated for a {@link FrameLayout} parent, which both activity content views and our
+     * fragment containers are.
+     */
+    public void preInflate(@NonNull AppCompatActivity activity,
+                           @StyleRes int theme,
+                           @LayoutRes int... layouts) {
+        Context appContext = activity.getApplicationContext();
+        Configuration configuration = activity.getResources().getConfiguration();
+        final AppCompatDelegate delegate = activity.getDelegate();
+        for (final int layout : layouts) {
+            if (mViews.get(layout) != null || mPending.get(layout) != null) { continue; }
+
+            ContextThemeWrapper themed = new ContextThemeWrapper(appContext, theme);
+            themed.applyOverrideConfiguration(new Configuration(configuration));
+            // One wrapper per view since each can end up in a different activity
+            MutableContextWrapper wrapper = new MutableContextWrapper(themed);
+            final LayoutInflater inflater = LayoutInflater.from(wrapper).cloneInContext(wrapper);
+            LayoutInflaterCompat.setFactory2(inflater, new LayoutInflater.Factory2() {
+                @Override
+                public View onCreateView(View parent, String name, Context context,
+                                         AttributeSet attrs) {
+                    return delegate.createView(parent, name, context, attrs);
+                }
+
+                @Override
+                public View onCreateView(String name, Context context, AttributeSet attrs) {
+                    return delegate.createView(null, name, context, attrs);
+                }
+            });
+            final ViewGroup parent = new FrameLayout(wrapper);
+            final int generation = mGeneration;
+
+            mPending.put(layout, true);
+            BackgroundExecutor.get().execute(new Runnable() {
+                @Override
+                public void run() {
+                    View view = null;
+                    try {
+                        view = inflater.inflate(layout, parent, false);
+                    } catch (RuntimeException e) {
+                        // The screen will inflate it on the main thread instead
+                        Log.w(TAG, "Could not pre-inflate layout", e);
+                    }
+
+                    final View result = view;
+                    HANDLER.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onInflated(generation, layout, result);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private void onInflated(int generation, @LayoutRes int layout, @Nullable View view) {
+        if (generation != mGeneration) { return; }
+
+        mPending.remove(layout);
+        if (view != null) { mViews.put(layout, view); }
+    }
+
+    /**
+     * Get the pre-inflated view of a layout, or {@code null} if it isn't ready.
+     */
+    @Nullable
+    public View take(@NonNull Context context, @LayoutRes int layout) {
+        View view = mViews.get(layout);
+        if (view == null) { return null; }
+        mViews.remove(layout);
+
+        Context viewContext = view.getContext();
+        if (viewContext instanceof MutableContextWrapper) {
+            // Let the views resolve the activity and its window from now on
+            ((MutableContextWrapper) viewContext).setBaseContext(context);
+        }
+        return view;
+    }
+
+    /**
+     * Drop the views that weren't used, including those still being inflated.
+     */
+    public void clear() {
+        mGeneration++;
+        mViews.clear();
+        mPending.clear();
+    }
+}
@@ -1,8 +1,11 @@
 package com.firebase.ui.auth.util.ui;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.net.Uri;
 import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.SpannedString;
 import android.text.TextUtils;
 import android.text.method.LinkMovementMethod;
 import android.text.style.ClickableSpan;
@@ -14,7 +17,9 @@ import android.widget.TextView;
 import com.firebase.ui.auth.R;
 import com.firebase.ui.auth.data.model.FlowParameters;
 
-import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import androidx.annotation.*;
 import androidx.browser.customtabs.CustomTabsIntent;
@@ -26,19 +31,22 @@ public class PreambleHandler {
     private static final String PP_TARGET = "%PP%";
     private static final int NO_BUTTON = -1;
 
+    /**
+     * Built preambles by flow and by (text, button) resources. Spans don't hold on to a context
+     * so they can be shared by every screen of the flow, but their text and colors depend on the
+     * configuration: the whole cache is dropped when it changes. Only used on the main thread.
+     */
+    private static final Map<FlowParameters, Map<Long, Spanned>> CACHE = new WeakHashMap<>();
+    private static final Configuration CACHED_CONFIGURATION = new Configuration();
+
     private final Context mContext;
     private final FlowParameters mFlowParameters;
     private final int mButtonText;
-    private final ForegroundColorSpan mLinkSpan;
-
-    private SpannableStringBuilder mBuilder;
 
     private PreambleHandler(Context context, FlowParameters parameters, @StringRes int buttonText) {
         mContext = context;
         mFlowParameters = parameters;
         mButtonText = buttonText;
-        mLinkSpan = new ForegroundColorSpan(ContextCompat.getColor(mContext,
-                R.color.fui_linkColor));
     }
 
     public static void setup(Context context,
@@ -53,47 +61,88 @@ public class PreambleHandler {
                              @StringRes int buttonText,
                              @StringRes int textViewText,
                              TextView textView) {
-        PreambleHandler handler = new PreambleHandler(context, parameters, buttonText);
-        handler.initPreamble(textViewText);
-        handler.setPreamble(textView);
-    }
-
-    private void setPreamble(TextView textView) {
+        Spanned preamble = getPreamble(context, parameters, buttonText, textViewText);
         textView.setMovementMethod(LinkMovementMethod.getInstance());
-        textView.setText(mBuilder);
+        textView.setText(preamble);
+
+        // Only worth it if the links are shown
+        if (preamble != null) {
+            CustomTabsSessionManager.getInstance().mayLaunchUrls(context,
+                    parameters.termsOfServiceUrl, parameters.privacyPolicyUrl);
+        }
     }
 
-    private void initPreamble(@StringRes int textViewText) {
-        String withTargets = getPreambleStringWithTargets(textViewText, mButtonText != NO_BUTTON);
-        if (withTargets == null) {
-            return;
+    @Nullable
+    private static Spanned getPreamble(Context context,
+                                       FlowParameters parameters,
+                                       @StringRes int buttonText,
+                                       @StringRes int textViewText) {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (CACHED_CONFIGURATION.diff(configuration) != 0) {
+            CACHE.clear();
+            CACHED_CONFIGURATION.setTo(configuration);
         }
 
-        mBuilder = new SpannableStringBuilder(withTargets);
+        Map<Long, Spanned> preambles = CACHE.get(parameters);
+        if (preambles == null) {
+            preambles = new HashMap<>();
+            CACHE.put(parameters, preambles);
+        }
 
-        replaceTarget(BTN_TARGET, mButtonText);
-        replaceUrlTarget(TOS_TARGET, R.string.fui_terms_of_service, mFlowParameters.termsOfServiceUrl);
-        replaceUrlTarget(PP_TARGET, R.string.fui_privacy_policy, mFlowParameters.privacyPolicyUrl);
-    }
+        long key = (long) textViewText << 32 | (buttonText & 0xFFFFFFFFL);
+        if (preambles.containsKey(key)) { return preambles.get(key); }
 
-    private void replaceTarget(String target, @StringRes int replacementRes) {
-        int targetIndex = mBuilder.toString().indexOf(target);
-        if (targetIndex != -1) {
-            String replacement = mContext.getString(replacementRes);
-            mBuilder.replace(targetIndex, targetIndex + target.length(), replacement);
-        }
+        Spanned preamble = new PreambleHandler(context, parameters, buttonText)
+                .buildPreamble(textViewText);
+        preambles.put(key, preamble);
+        return preamble;
     }
 
-    private void replaceUrlTarget(String target, @StringRes int replacementRes, String url) {
-        int targetIndex = mBuilder.toString().indexOf(target);
-        if (targetIndex != -1) {
-            String replacement = mContext.getString(replacementRes);
-            mBuilder.replace(targetIndex, targetIndex + target.length(), replacement);
+    /**
+     * Replace the targets in one pass over the text rather than searching the whole text for
+     * each of them.
+     */
+    @Nullable
+    private Spanned buildPreamble(@StringRes int textViewText) {
+        String withTargets = getPreambleStringWithTargets(textViewText, mButtonText != NO_BUTTON);
+        if (withTargets == null) {
+            return null;
+        }
 
-            int end = targetIndex + replacement.length();
-            mBuilder.setSpan(mLinkSpan, targetIndex, end, 0);
-            mBuilder.setSpan(new CustomTabsSpan(mContext, url), targetIndex, end, 0);
+        @ColorInt int linkColor = ContextCompat.getColor(mContext, R.color.fui_linkColor);
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        int start = 0;
+        for (int index = withTargets.indexOf('%'); index != -1;
+             index = withTargets.indexOf('%', index + 1)) {
+            if (withTargets.startsWith(BTN_TARGET, index)) {
+                builder.append(withTargets, start, index).append(mContext.getString(mButtonText));
+                start = index + BTN_TARGET.length();
+            } else if (withTargets.startsWith(TOS_TARGET, index)) {
+                builder.append(withTargets, start, index);
+                appendLink(builder, R.string.fui_terms_of_service,
+                        mFlowParameters.termsOfServiceUrl, linkColor);
+                start = index + TOS_TARGET.length();
+            } else if (withTargets.startsWith(PP_TARGET, index)) {
+                builder.append(withTargets, start, index);
+                appendLink(builder, R.string.fui_privacy_policy,
+                        mFlowParameters.privacyPolicyUrl, linkColor);
+                start = index + PP_TARGET.length();
+            }
         }
+        builder.append(withTargets, start, withTargets.length());
+
+        return new SpannedString(builder);
+    }
+
+    private void appendLink(SpannableStringBuilder builder,
+                            @StringRes int replacementRes,
+                            String url,
+                            @ColorInt int linkColor) {
+        int start = builder.length();
+        builder.append(mContext.getString(replacementRes));
+        // A span instance can only cover one range, each link needs its own
+        builder.setSpan(new ForegroundColorSpan(linkColor), start, builder.length(), 0);
+        builder.setSpan(new CustomTabsSpan(url), start, builder.length(), 0);
     }
 
     @Nullable
@@ -112,31 +161,35 @@ public class PreambleHandler {
     }
 
     private static final class CustomTabsSpan extends ClickableSpan {
-        private final WeakReference<Context> mContext;
         private final String mUrl;
-        private final CustomTabsIntent mCustomTabsIntent;
+        private CustomTabsIntent mCustomTabsIntent;
 
-        public CustomTabsSpan(Context context, String url) {
-            mContext = new WeakReference<>(context);
+        public CustomTabsSpan(String url) {
             mUrl = url;
+        }
+
+        @Override
+        public void onClick(View widget) {
+            Context context = widget.getContext();
+            getCustomTabsIntent(context).launchUrl(context, Uri.parse(mUrl));
+        }
+
+        private CustomTabsIntent getCustomTabsIntent(Context context) {
+            if (mCustomTabsIntent != null) { return mCustomTabsIntent; }
 
             // Getting default color
             TypedValue typedValue = new TypedValue();
             context.getTheme().resolveAttribute(R.attr.colorPrimary, typedValue, true);
             @ColorInt int color = typedValue.data;
 
-            mCustomTabsIntent = new CustomTabsIntent.Builder()
+            CustomTabsSessionManager manager = CustomTabsSessionManager.getInstance();
+            CustomTabsIntent intent = manager.newIntentBuilder()
                     .setToolbarColor(color)
                     .setShowTitle(true)
                     .build();
-        }
-
-        @Override
-        public void onClick(View widget) {
-            Context context = mContext.get();
-            if (context != null) {
-                mCustomTabsIntent.launchUrl(context, Uri.parse(mUrl));
-            }
+            // Built again next time if the session wasn't bound yet
+            if (manager.hasSession()) { mCustomTabsIntent = intent; }
+            return intent;
         }
     }
 }
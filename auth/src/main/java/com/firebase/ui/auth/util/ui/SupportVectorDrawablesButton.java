@@ -8,8 +8,8 @@ import android.util.AttributeSet;
 
 import com.firebase.ui.auth.R;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
-import androidx.appcompat.content.res.AppCompatResources;
 import androidx.appcompat.widget.AppCompatButton;
 import androidx.core.widget.TextViewCompat;
 
@@ -37,7 +37,8 @@ public class SupportVectorDrawablesButton extends AppCompatButton {
     }
 
     /**
-     * Loads the compound drawables natively on L+ devices and using AppCompat pre-L.
+     * Loads the compound drawables through the {@link DrawableCache}, which uses AppCompat to
+     * support vectors pre-L.
      * <p>
      * <i>Note:</i> If we ever need a TextView with compound drawables, this same technique is
      * applicable.
@@ -49,47 +50,33 @@ public class SupportVectorDrawablesButton extends AppCompatButton {
                 attrs,
                 R.styleable.SupportVectorDrawablesButton);
 
-        Drawable drawableStart = null;
-        Drawable drawableEnd = null;
-        Drawable drawableTop = null;
-        Drawable drawableBottom = null;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            drawableStart = attributeArray.getDrawable(
-                    R.styleable.SupportVectorDrawablesButton_drawableStartCompat);
-            drawableEnd = attributeArray.getDrawable(
-                    R.styleable.SupportVectorDrawablesButton_drawableEndCompat);
-            drawableTop = attributeArray.getDrawable(
-                    R.styleable.SupportVectorDrawablesButton_drawableTopCompat);
-            drawableBottom = attributeArray.getDrawable(
-                    R.styleable.SupportVectorDrawablesButton_drawableBottomCompat);
-        } else {
-            int drawableStartId = attributeArray.getResourceId(
-                    R.styleable.SupportVectorDrawablesButton_drawableStartCompat, -1);
-            int drawableEndId = attributeArray.getResourceId(
-                    R.styleable.SupportVectorDrawablesButton_drawableEndCompat, -1);
-            int drawableTopId = attributeArray.getResourceId(
-                    R.styleable.SupportVectorDrawablesButton_drawableTopCompat, -1);
-            int drawableBottomId = attributeArray.getResourceId(
-                    R.styleable.SupportVectorDrawablesButton_drawableBottomCompat, -1);
-
-            if (drawableStartId != -1) {
-                drawableStart = AppCompatResources.getDrawable(getContext(), drawableStartId);
-            }
-            if (drawableEndId != -1) {
-                drawableEnd = AppCompatResources.getDrawable(getContext(), drawableEndId);
-            }
-            if (drawableTopId != -1) {
-                drawableTop = AppCompatResources.getDrawable(getContext(), drawableTopId);
-            }
-            if (drawableBottomId != -1) {
-                drawableBottom = AppCompatResources.getDrawable(getContext(), drawableBottomId);
-            }
-        }
+        Drawable drawableStart = getDrawable(attributeArray,
+                R.styleable.SupportVectorDrawablesButton_drawableStartCompat);
+        Drawable drawableEnd = getDrawable(attributeArray,
+                R.styleable.SupportVectorDrawablesButton_drawableEndCompat);
+        Drawable drawableTop = getDrawable(attributeArray,
+                R.styleable.SupportVectorDrawablesButton_drawableTopCompat);
+        Drawable drawableBottom = getDrawable(attributeArray,
+                R.styleable.SupportVectorDrawablesButton_drawableBottomCompat);
 
         TextViewCompat.setCompoundDrawablesRelativeWithIntrinsicBounds(
                 this, drawableStart, drawableTop, drawableEnd, drawableBottom);
 
         attributeArray.recycle();
     }
+
+    /**
+     * Load drawable resources through the {@link DrawableCache} so buttons with the same icon
+     * share it. Other values, such as colors, can only be loaded natively on L+.
+     */
+    @Nullable
+    private Drawable getDrawable(TypedArray attributeArray, int index) {
+        int id = attributeArray.getResourceId(index, 0);
+        if (id != 0) {
+            return DrawableCache.getInstance().get(getContext(), id);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return attributeArray.getDrawable(index);
+        }
+        return null;
+    }
 }
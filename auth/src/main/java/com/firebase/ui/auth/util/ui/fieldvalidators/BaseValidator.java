@@ -14,17 +14,28 @@
 
 package com.firebase.ui.auth.util.ui.fieldvalidators;
 
+import android.text.TextUtils;
 
 import com.google.android.material.textfield.TextInputLayout;
 
-import androidx.annotation.RestrictTo;
-
+import androidx.annotation.*;
 
+/**
+ * Validates the text of a field and shows the error in its {@link TextInputLayout}.
+ * <p>
+ * The result for the last text is kept, validating the same text again only makes sure the
+ * layout still shows its error. The layout is only touched when that error changes, setting an
+ * error relayouts the field and sends accessibility events even if the text is the same.
+ */
 public class BaseValidator {
     protected TextInputLayout mErrorContainer;
     protected String mErrorMessage = "";
     protected String mEmptyMessage;
 
+    private String mLastInput;
+    private int mLastHash;
+    private String mLastError;
+
     public BaseValidator(TextInputLayout errorContainer) {
         mErrorContainer = errorContainer;
     }
@@ -33,16 +44,45 @@ public class BaseValidator {
         return true;
     }
 
-    public boolean validate(CharSequence charSequence) {
+    /**
+     * @return the error to show for the text, or {@code null} if it's valid
+     */
+    @Nullable
+    protected String getError(CharSequence charSequence) {
         if (mEmptyMessage != null && (charSequence == null || charSequence.length() == 0)) {
-            mErrorContainer.setError(mEmptyMessage);
-            return false;
+            return mEmptyMessage;
         } else if (isValid(charSequence)) {
-            mErrorContainer.setError("");
-            return true;
+            return null;
         } else {
-            mErrorContainer.setError(mErrorMessage);
-            return false;
+            return mErrorMessage;
+        }
+    }
+
+    public boolean validate(CharSequence charSequence) {
+        int hash = hash(charSequence);
+        if (mLastInput == null || hash != mLastHash
+                || !TextUtils.equals(mLastInput, charSequence)) {
+            mLastInput = charSequence == null ? "" : charSequence.toString();
+            mLastHash = hash;
+            mLastError = getError(charSequence);
+        }
+
+        if (!TextUtils.equals(mErrorContainer.getError(), mLastError)) {
+            mErrorContainer.setError(mLastError);
+        }
+        return mLastError == null;
+    }
+
+    /**
+     * Same as {@link String#hashCode()}, without copying the text of an {@code Editable}.
+     */
+    private static int hash(@Nullable CharSequence charSequence) {
+        if (charSequence == null) { return 0; }
+
+        int hash = 0;
+        for (int i = 0, length = charSequence.length(); i < length; i++) {
+            hash = 31 * hash + charSequence.charAt(i);
         }
+        return hash;
     }
 }
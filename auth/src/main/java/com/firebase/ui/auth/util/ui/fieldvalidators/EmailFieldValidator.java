@@ -14,9 +14,8 @@
 
 package com.firebase.ui.auth.util.ui.fieldvalidators;
 
-import android.util.Patterns;
-
 import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.util.data.EmailSyntaxAutomaton;
 import com.google.android.material.textfield.TextInputLayout;
 
 import androidx.annotation.RestrictTo;
@@ -31,6 +30,6 @@ public class EmailFieldValidator extends BaseValidator {
 
     @Override
     protected boolean isValid(CharSequence charSequence) {
-        return Patterns.EMAIL_ADDRESS.matcher(charSequence).matches();
+        return EmailSyntaxAutomaton.matches(charSequence);
     }
 }
@@ -0,0 +1,79 @@
+package com.firebase.ui.auth.util.ui.fieldvalidators;
+
+import android.widget.TextView;
+
+import com.firebase.ui.auth.util.data.EmailSyntaxAutomaton;
+
+import androidx.annotation.*;
+
+/**
+ * The rules of our email forms, built once per process.
+ */
+public final class FormRules {
+    public static final int PASSWORD_MIN_LENGTH = 8;
+    public static final int PASSWORD_MAX_LENGTH = 32;
+
+    private static final String EMAIL_FORMAT_ERROR = "email format error";
+    private static final RuleSet EMAIL_NOT_EMPTY = new RuleSet.Builder()
+            .notEmpty("email cannot be empty")
+            .build();
+
+    public static final RuleSet EMAIL = new RuleSet.Builder()
+            .add(new RuleSet.Rule() {
+                @Override
+                public boolean test(@NonNull CharSequence text, int classes) {
+                    return EmailSyntaxAutomaton.matches(text);
+                }
+            }, EMAIL_FORMAT_ERROR)
+            .addAll(EMAIL_NOT_EMPTY)
+            .build();
+
+    public static final RuleSet PASSWORD = new RuleSet.Builder()
+            .length(PASSWORD_MIN_LENGTH, PASSWORD_MAX_LENGTH,
+                    "at least " + PASSWORD_MIN_LENGTH + " characters",
+                    "at maximum " + PASSWORD_MAX_LENGTH + " characters")
+            .contains(RuleSet.HAS_UPPER, "at least 1 uppercase letter")
+            .contains(RuleSet.HAS_LOWER, "at least 1 lowercase letter")
+            .contains(RuleSet.HAS_DIGIT, "at least 1 number")
+            .build();
+
+    private static final RuleSet PASSWORD_REPEAT_NOT_EMPTY = new RuleSet.Builder()
+            .notEmpty("password cannot be empty")
+            .build();
+
+    private FormRules() {
+        throw new AssertionError("No instance for you!");
+    }
+
+    /**
+     * Same as {@link #EMAIL} for the text of {@code email}, whose syntax is followed as it's typed
+     * rather than checked again from the start on each validation.
+     */
+    public static RuleSet email(@NonNull TextView email) {
+        final EmailSyntaxAutomaton.Watcher syntax = EmailSyntaxAutomaton.Watcher.watch(email);
+        return new RuleSet.Builder()
+                .add(new RuleSet.Rule() {
+                    @Override
+                    public boolean test(@NonNull CharSequence text, int classes) {
+                        return syntax.isValid();
+                    }
+                }, EMAIL_FORMAT_ERROR)
+                .addAll(EMAIL_NOT_EMPTY)
+                .build();
+    }
+
+    /**
+     * Rules for a field repeating the password typed in {@code password}.
+     */
+    public static RuleSet passwordRepeat(@NonNull final TextView password) {
+        return new RuleSet.Builder()
+                .addAll(PASSWORD_REPEAT_NOT_EMPTY)
+                .add(new RuleSet.Rule() {
+                    @Override
+                    public boolean test(@NonNull CharSequence text, int classes) {
+                        return text.toString().equals(password.getText().toString());
+                    }
+                }, "password not matched")
+                .build();
+    }
+}
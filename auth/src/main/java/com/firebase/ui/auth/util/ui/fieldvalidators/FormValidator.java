@@ -0,0 +1,130 @@
+package com.firebase.ui.auth.util.ui.fieldvalidators;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.EditText;
+
+import com.google.android.material.textfield.TextInputLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.*;
+
+/**
+ * Validates the fields of a form as the user types, once they stop typing for
+ * {@link #DEBOUNCE_MS}, and all of them again on submit. Must be used on the main thread.
+ */
+public final class FormValidator {
+    public static final long DEBOUNCE_MS = 300;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<Field> mFields = new ArrayList<>();
+
+    /**
+     * Validate {@code editText} against {@code rules}, showing the errors in {@code layout}.
+     */
+    @NonNull
+    public Field field(@NonNull EditText editText,
+                       @NonNull TextInputLayout layout,
+                       @NonNull RuleSet rules) {
+        Field field = new Field(editText, layout, rules);
+        editText.addTextChangedListener(field);
+        mFields.add(field);
+        return field;
+    }
+
+    /**
+     * Run {@code onValid} when {@code button} is clicked and every field is valid.
+     */
+    public void submitWith(@NonNull View button, @NonNull final Runnable onValid) {
+        button.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (validate()) { onValid.run(); }
+            }
+        });
+    }
+
+    /**
+     * Validate every field now, dropping pending validations.
+     *
+     * @return whether all fields are valid
+     */
+    public boolean validate() {
+        boolean valid = true;
+        for (Field field : mFields) {
+            valid &= field.validate();
+        }
+        return valid;
+    }
+
+    /**
+     * Drop pending validations, e.g. when the views are destroyed.
+     */
+    public void cancel() {
+        for (Field field : mFields) {
+            mHandler.removeCallbacks(field);
+        }
+    }
+
+    public final class Field implements TextWatcher, Runnable {
+        private final EditText mEditText;
+        private final TextInputLayout mLayout;
+        private final RuleSet mRules;
+        private final List<Field> mDependents = new ArrayList<>();
+        private boolean mEdited;
+
+        private Field(EditText editText, TextInputLayout layout, RuleSet rules) {
+            mEditText = editText;
+            mLayout = layout;
+            mRules = rules;
+        }
+
+        /**
+         * Also validate this field when {@code other} changes, once the user edited this one.
+         */
+        @NonNull
+        public Field dependsOn(@NonNull Field other) {
+            other.mDependents.add(this);
+            return this;
+        }
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            mEdited = true;
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            validate();
+            for (Field dependent : mDependents) {
+                if (dependent.mEdited) { dependent.validate(); }
+            }
+        }
+
+        boolean validate() {
+            mHandler.removeCallbacks(this);
+
+            StringBuilder errors = new StringBuilder();
+            boolean valid = mRules.check(mEditText.getText(), errors);
+            mLayout.setError(valid ? null : errors);
+            return valid;
+        }
+
+        private void schedule() {
+            mHandler.removeCallbacks(this);
+            mHandler.postDelayed(this, DEBOUNCE_MS);
+        }
+    }
+}
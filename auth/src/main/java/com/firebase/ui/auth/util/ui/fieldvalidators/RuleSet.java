@@ -0,0 +1,142 @@
+package com.firebase.ui.auth.util.ui.fieldvalidators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.*;
+
+/**
+ * Rules checked against the text of a field, each with the message shown when it fails. Sets are
+ * immutable and meant to be built once, see {@link FormRules}.
+ * <p>
+ * Rules asking for character classes get them from a single pass over the text, shared by the
+ * whole set, instead of each rule looking through the text on its own.
+ */
+public final class RuleSet {
+    public static final int HAS_DIGIT = 1;
+    public static final int HAS_LOWER = 1 << 1;
+    public static final int HAS_UPPER = 1 << 2;
+
+    /**
+     * A single check, {@code classes} holds the {@code HAS_*} bits found in the text when the set
+     * scans it and 0 otherwise.
+     */
+    public interface Rule {
+        boolean test(@NonNull CharSequence text, int classes);
+    }
+
+    private final Rule[] mRules;
+    private final String[] mMessages;
+    private final boolean mScans;
+
+    private RuleSet(Rule[] rules, String[] messages, boolean scans) {
+        mRules = rules;
+        mMessages = messages;
+        mScans = scans;
+    }
+
+    /**
+     * Check the text against every rule, appending a {@code "-message"} line to {@code errors}
+     * for each one that fails.
+     *
+     * @return whether all rules passed
+     */
+    public boolean check(@Nullable CharSequence text, @Nullable StringBuilder errors) {
+        if (text == null) { text = ""; }
+        int classes = mScans ? scan(text) : 0;
+
+        boolean valid = true;
+        for (int i = 0; i < mRules.length; i++) {
+            if (mRules[i].test(text, classes)) { continue; }
+
+            valid = false;
+            if (errors == null) { break; }
+            if (errors.length() > 0) { errors.append('\n'); }
+            errors.append('-').append(mMessages[i]);
+        }
+        return valid;
+    }
+
+    /**
+     * Find which of the {@code HAS_*} character classes the text contains.
+     */
+    public static int scan(@NonNull CharSequence text) {
+        int classes = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                classes |= HAS_DIGIT;
+            } else if (c >= 'a' && c <= 'z') {
+                classes |= HAS_LOWER;
+            } else if (c >= 'A' && c <= 'Z') {
+                classes |= HAS_UPPER;
+            }
+            if (classes == (HAS_DIGIT | HAS_LOWER | HAS_UPPER)) { break; }
+        }
+        return classes;
+    }
+
+    public static final class Builder {
+        private final List<Rule> mRules = new ArrayList<>();
+        private final List<String> mMessages = new ArrayList<>();
+        private boolean mScans;
+
+        public Builder add(@NonNull Rule rule, @NonNull String message) {
+            mRules.add(rule);
+            mMessages.add(message);
+            return this;
+        }
+
+        public Builder addAll(@NonNull RuleSet rules) {
+            for (int i = 0; i < rules.mRules.length; i++) {
+                add(rules.mRules[i], rules.mMessages[i]);
+            }
+            mScans |= rules.mScans;
+            return this;
+        }
+
+        public Builder notEmpty(@NonNull String message) {
+            return add(new Rule() {
+                @Override
+                public boolean test(@NonNull CharSequence text, int classes) {
+                    return text.length() > 0;
+                }
+            }, message);
+        }
+
+        public Builder length(final int min, final int max, @NonNull String tooShort,
+                              @NonNull String tooLong) {
+            add(new Rule() {
+                @Override
+                public boolean test(@NonNull CharSequence text, int classes) {
+                    return text.length() >= min;
+                }
+            }, tooShort);
+            return add(new Rule() {
+                @Override
+                public boolean test(@NonNull CharSequence text, int classes) {
+                    return text.length() <= max;
+                }
+            }, tooLong);
+        }
+
+        /**
+         * Require the text to contain the given {@code HAS_*} character class.
+         */
+        public Builder contains(final int characterClass, @NonNull String message) {
+            mScans = true;
+            return add(new Rule() {
+                @Override
+                public boolean test(@NonNull CharSequence text, int classes) {
+                    return (classes & characterClass) != 0;
+                }
+            }, message);
+        }
+
+        public RuleSet build() {
+            return new RuleSet(mRules.toArray(new Rule[0]),
+                    mMessages.toArray(new String[0]),
+                    mScans);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.firebase.ui.auth.util.ui.fieldvalidators
 
 import android.text.*
-import com.afollestad.vvalidator.field.FieldError
 import com.google.android.material.textfield.*
 
 class VValidation {
@@ -19,36 +18,5 @@ class VValidation {
 
             })
         }
-
-        fun formatErrorMessages(errors: List<FieldError>, inputLayout: TextInputLayout) {
-            val messages = getCombinedMessages(errors, StringBuilder())
-            var formatted = splitAndFormatMessages(messages)
-            setErrorInView(formatted, inputLayout)
-        }
-
-        private fun setErrorInView(tmp: String, editText: TextInputLayout) {
-            if (tmp.isNotEmpty())
-                editText.error = tmp
-        }
-
-        private fun splitAndFormatMessages(messages: String): String {
-            var tmp = ""
-            val split = messages.split("##")
-
-            split.forEachIndexed { index, s ->
-                if (s.isNotEmpty()) {
-                    tmp += "-$s"
-                    if (index < split.size - 1)
-                        tmp += "\n"
-                }
-            }
-            return tmp
-        }
-
-        private fun getCombinedMessages(errors: List<FieldError>, messages: StringBuilder): String {
-            errors.forEach { messages.append(it.description) }
-            return messages.toString()
-        }
-
     }
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package com.firebase.ui.auth.viewmodel;
 
 import android.app.Application;
 
+import com.firebase.ui.auth.NetworkPolicy;
 import com.firebase.ui.auth.data.model.*;
 import com.firebase.ui.auth.util.GoogleApiUtils;
+import com.firebase.ui.auth.util.data.NetworkTasks;
 import com.google.android.gms.auth.api.credentials.CredentialsClient;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.*;
@@ -15,7 +17,7 @@ public abstract class AuthViewModelBase<T> extends OperableViewModel<FlowParamet
     private FirebaseAuth mAuth;
 
     protected AuthViewModelBase(Application application) {
-        super(application);
+        super(application, new OperationChannel<T>());
     }
 
     @Override
@@ -39,6 +41,10 @@ public abstract class AuthViewModelBase<T> extends OperableViewModel<FlowParamet
         return mCredentialsClient;
     }
 
+    protected NetworkPolicy getNetworkPolicy() {
+        return NetworkTasks.getPolicy(mAuth);
+    }
+
     @VisibleForTesting
     public void initializeForTesting(FlowParameters parameters,
                                      FirebaseAuth auth,
@@ -7,10 +7,19 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 public abstract class OperableViewModel<I, O> extends ViewModelBase<I> {
-    private MutableLiveData<O> mOperation = new MutableLiveData<>();
+    private final MutableLiveData<O> mOperation;
 
     protected OperableViewModel(Application application) {
+        this(application, new MutableLiveData<O>());
+    }
+
+    /**
+     * @param operation holds the state of the operation, an {@link OperationChannel} lets results
+     *                  be set from any thread
+     */
+    protected OperableViewModel(Application application, MutableLiveData<O> operation) {
         super(application);
+        mOperation = operation;
     }
 
     /**
@@ -20,7 +29,21 @@ public abstract class OperableViewModel<I, O> extends ViewModelBase<I> {
         return mOperation;
     }
 
+    /**
+     * Get the observable state of the operation for observers that only watch it. Unlike
+     * {@link #getOperation()}, results aren't consumed by observing it.
+     */
+    @SuppressWarnings("unchecked")
+    public LiveData<O> getStates() {
+        if (mOperation instanceof OperationChannel) {
+            return (LiveData<O>) ((OperationChannel<?>) mOperation).getStates();
+        }
+        return mOperation;
+    }
+
     protected void setResult(O output) {
+        // Nobody is listening anymore once we've been cleared
+        if (getCancellationToken().isCancellationRequested()) { return; }
         mOperation.setValue(output);
     }
 }
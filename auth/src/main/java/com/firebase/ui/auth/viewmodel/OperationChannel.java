@@ -0,0 +1,109 @@
+package com.firebase.ui.auth.viewmodel;
+
+import android.os.Looper;
+
+import com.firebase.ui.auth.data.model.Resource;
+import com.firebase.ui.auth.data.model.State;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import androidx.annotation.*;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+/**
+ * Holds the state of an operation and delivers it to observers.
+ * <ul>
+ * <li>{@link #setValue(Resource)} can be called from any thread. Values set off the main thread
+ * are conflated: only the latest one is dispatched.
+ * <li>Terminal values (success or failure) are delivered to a single observer, once. An observer
+ * registered after a configuration change only receives them if they are still pending.
+ * Loading values are always delivered so progress can be shown again.
+ * <li>{@link #getStates()} delivers every value to all of its observers, for those that only
+ * watch the operation without handling its result.
+ * </ul>
+ */
+public class OperationChannel<T> extends MutableLiveData<Resource<T>> {
+    private final Map<Observer<? super Resource<T>>, OnceObserver> mObservers =
+            new IdentityHashMap<>();
+    private final MutableLiveData<Resource<T>> mStates = new MutableLiveData<>();
+
+    // Only accessed on the main thread
+    private int mVersion;
+    private int mDeliveredVersion;
+
+    @Override
+    public void setValue(Resource<T> value) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // Dispatched back to setValue on the main thread, dropping intermediate values
+            postValue(value);
+            return;
+        }
+
+        mVersion++;
+        mStates.setValue(value);
+        super.setValue(value);
+    }
+
+    /**
+     * Get every value of the operation, starting with the current one. Observing it doesn't
+     * consume terminal values.
+     */
+    @NonNull
+    public LiveData<Resource<T>> getStates() {
+        return mStates;
+    }
+
+    @Override
+    public void observe(@NonNull LifecycleOwner owner,
+                        @NonNull Observer<? super Resource<T>> observer) {
+        super.observe(owner, wrap(observer));
+    }
+
+    @Override
+    public void observeForever(@NonNull Observer<? super Resource<T>> observer) {
+        super.observeForever(wrap(observer));
+    }
+
+    @Override
+    public void removeObserver(@NonNull Observer<? super Resource<T>> observer) {
+        if (observer instanceof OperationChannel.OnceObserver) {
+            // Called by removeObservers(owner) with our own wrapper
+            mObservers.remove(((OnceObserver) observer).mDelegate);
+            super.removeObserver(observer);
+            return;
+        }
+
+        OnceObserver wrapper = mObservers.remove(observer);
+        super.removeObserver(wrapper == null ? observer : wrapper);
+    }
+
+    private OnceObserver wrap(Observer<? super Resource<T>> observer) {
+        OnceObserver wrapper = mObservers.get(observer);
+        if (wrapper == null) {
+            wrapper = new OnceObserver(observer);
+            mObservers.put(observer, wrapper);
+        }
+        return wrapper;
+    }
+
+    private final class OnceObserver implements Observer<Resource<T>> {
+        private final Observer<? super Resource<T>> mDelegate;
+
+        public OnceObserver(Observer<? super Resource<T>> delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void onChanged(Resource<T> resource) {
+            if (resource != null && resource.getState() != State.LOADING) {
+                if (mDeliveredVersion == mVersion) { return; }
+                mDeliveredVersion = mVersion;
+            }
+            mDelegate.onChanged(resource);
+        }
+    }
+}
@@ -14,7 +14,7 @@ import androidx.annotation.*;
  */
 public abstract class ProviderSignInBase<T> extends OperableViewModel<T, Resource<IdentityProviderResponse>> {
     protected ProviderSignInBase(Application application) {
-        super(application);
+        super(application, new OperationChannel<IdentityProviderResponse>());
     }
 
     /**
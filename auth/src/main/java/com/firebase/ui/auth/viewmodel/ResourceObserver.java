@@ -60,8 +60,6 @@ public abstract class ResourceObserver<T> implements Observer<Resource<T>> {
         }
         mProgressView.hideProgress();
 
-        if (resource.isUsed()) { return; }
-
         if (resource.getState() == State.SUCCESS) {
             onSuccess(resource.getValue());
         } else if (resource.getState() == State.FAILURE) {
@@ -4,6 +4,7 @@ import android.app.Application;
 
 import com.firebase.ui.auth.IdentityProviderResponse;
 import com.firebase.ui.auth.data.model.Resource;
+import com.firebase.ui.auth.util.data.SignInTracer;
 import com.google.firebase.auth.AuthResult;
 
 import androidx.annotation.*;
@@ -20,6 +21,7 @@ public abstract class SignInViewModelBase extends AuthViewModelBase<IdentityProv
     }
 
     protected void handleSuccess(@NonNull IdentityProviderResponse response, @NonNull AuthResult result) {
+        SignInTracer.getInstance().onSignedIn(response.getProviderType());
         setResult(Resource.forSuccess(response.withResult(result)));
     }
 }
@@ -1,6 +1,10 @@
 package com.firebase.ui.auth.viewmodel;
 
 import android.app.Application;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import androidx.annotation.CallSuper;
@@ -9,6 +13,7 @@ import androidx.lifecycle.AndroidViewModel;
 
 public abstract class ViewModelBase<T> extends AndroidViewModel {
     private final AtomicBoolean mIsInitialized = new AtomicBoolean();
+    private final CancellationTokenSource mCancellationSource = new CancellationTokenSource();
 
     private T mArguments;
 
@@ -29,6 +34,14 @@ public abstract class ViewModelBase<T> extends AndroidViewModel {
         return mArguments;
     }
 
+    /**
+     * Get a token that is cancelled once this ViewModel is cleared. Task chains started by this
+     * ViewModel should check it before issuing any follow-up calls.
+     */
+    protected CancellationToken getCancellationToken() {
+        return mCancellationSource.getToken();
+    }
+
     @RestrictTo(RestrictTo.Scope.TESTS)
     protected void setArguments(T arguments) {
         mArguments = arguments;
@@ -38,5 +51,6 @@ public abstract class ViewModelBase<T> extends AndroidViewModel {
     @Override
     protected void onCleared() {
         mIsInitialized.set(false);
+        mCancellationSource.cancel();
     }
 }
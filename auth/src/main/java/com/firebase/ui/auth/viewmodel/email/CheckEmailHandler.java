@@ -34,7 +34,7 @@ public class CheckEmailHandler extends AuthViewModelBase<User> {
     public void fetchProvider(final String email) {
         setResult(Resource.forLoading());
 
-        ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email)
+        ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email, getCancellationToken())
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         setResult(Resource.forSuccess(
@@ -51,7 +51,7 @@ public class CheckEmailHandler extends AuthViewModelBase<User> {
         setResult(Resource.forLoading());
         final Credential credential = data.getParcelableExtra(Credential.EXTRA_KEY);
         final String email = credential.getId();
-        ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email)
+        ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email, getCancellationToken())
                 .addOnCompleteListener(new OnCompleteListener<String>() {
                     @Override
                     public void onComplete(@NonNull Task<String> task) {
@@ -36,7 +36,7 @@ public class EmailProviderResponseHandler extends SignInViewModelBase {
         final AuthOperationManager authOperationManager = AuthOperationManager.getInstance();
         final String email = response.getEmail();
         authOperationManager.createOrLinkUserWithEmailAndPassword(getAuth(), email, password)
-                .continueWithTask(new ProfileMerger(response))
+                .continueWithTask(new ProfileMerger(response, getNetworkPolicy(), getCancellationToken()))
                 .addOnFailureListener(new TaskFailureLogger(TAG, "Error creating user"))
                 .addOnSuccessListener(new OnSuccessListener<AuthResult>() {
                     @Override
@@ -51,7 +51,7 @@ public class EmailProviderResponseHandler extends SignInViewModelBase {
                             // Collision with existing user email without anonymous upgrade
                             // it should be very hard for the user to even get to this error
                             // due to CheckEmailFragment.
-                            ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email)
+                            ProviderUtils.fetchTopProvider(getAuth(), getArguments(), email, getCancellationToken())
                                     .addOnSuccessListener(new StartWelcomeBackFlow(email))
                                     .addOnFailureListener(new OnFailureListener() {
                                         @Override
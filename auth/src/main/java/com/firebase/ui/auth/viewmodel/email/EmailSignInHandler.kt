@@ -2,13 +2,18 @@ package com.firebase.ui.auth.viewmodel.email
 
 import android.app.Application
 import com.firebase.ui.auth.IdentityProviderResponse
+import com.firebase.ui.auth.NetworkPolicy
+import com.firebase.ui.auth.SignInSpan
 import com.firebase.ui.auth.data.model.Resource
 import com.firebase.ui.auth.data.model.User
 import com.firebase.ui.auth.data.remote.ProfileMerger
+import com.firebase.ui.auth.util.data.NetworkTasks
+import com.firebase.ui.auth.util.data.SignInTracer
 import com.firebase.ui.auth.util.data.TaskFailureLogger
 import com.firebase.ui.auth.viewmodel.SignInViewModelBase
 import com.google.android.gms.tasks.Tasks
 import com.google.firebase.auth.AuthCredential
+import com.google.firebase.auth.AuthResult
 import com.google.firebase.auth.EmailAuthProvider
 
 /**
@@ -54,18 +59,28 @@ class EmailSignInHandler(application: Application) : SignInViewModelBase(applica
                 }
 
         // Kick off the flow including signing in, linking accounts, and saving with SmartLock
-        auth.signInWithEmailAndPassword(email, password)
+        SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                EmailAuthProvider.PROVIDER_ID,
+                NetworkTasks.run(networkPolicy, NetworkPolicy.SIGN_IN) {
+                    auth.signInWithEmailAndPassword(email, password)
+                })
                 .continueWithTask { task ->
                     // Forward task failure by asking for result
                     val result = task.getResult(Exception::class.java)
 
                     // Task succeeded, link user if necessary
-                    if (credential == null) {
+                    if (cancellationToken.isCancellationRequested) {
+                        Tasks.forCanceled<AuthResult>()
+                    } else if (credential == null) {
                         Tasks.forResult(result)
                     } else {
-                        result!!.user!!
-                                .linkWithCredential(credential)
-                                .continueWithTask(ProfileMerger(outputResponse))
+                        val user = result!!.user!!
+                        SignInTracer.getInstance().trace(SignInSpan.LINK,
+                                credential.provider,
+                                NetworkTasks.run(networkPolicy, NetworkPolicy.LINK) {
+                                    user.linkWithCredential(credential)
+                                })
+                                .continueWithTask(ProfileMerger(outputResponse, networkPolicy, cancellationToken))
                                 .addOnFailureListener(TaskFailureLogger(TAG,
                                         "linkWithCredential+merge failed."))
                     }
@@ -6,8 +6,13 @@ import com.firebase.ui.auth.AuthUI;
 import com.firebase.ui.auth.ErrorCodes;
 import com.firebase.ui.auth.FirebaseUiException;
 import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.SignInSpan;
 import com.firebase.ui.auth.data.model.Resource;
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
+import com.firebase.ui.auth.util.data.NetworkTasks;
 import com.firebase.ui.auth.util.data.ProviderUtils;
+import com.firebase.ui.auth.util.data.SignInTracer;
 import com.firebase.ui.auth.viewmodel.SignInViewModelBase;
 import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -51,17 +56,25 @@ public class LinkingSocialProviderResponseHandler extends SignInViewModelBase {
         final AuthCredential credential = ProviderUtils.getAuthCredential(response);
 
 
-            getAuth().signInWithCredential(credential)
-                    .continueWithTask(new Continuation<AuthResult, Task<AuthResult>>() {
+            SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                    credential.getProvider(),
+                    NetworkTasks.run(getNetworkPolicy(), NetworkPolicy.SIGN_IN,
+                            () -> getAuth().signInWithCredential(credential)))
+                    .continueWithTask(BackgroundExecutor.get(), new Continuation<AuthResult, Task<AuthResult>>() {
                         @Override
                         public Task<AuthResult> then(@NonNull Task<AuthResult> task) {
+                            if (getCancellationToken().isCancellationRequested()) {
+                                return Tasks.forCanceled();
+                            }
                             final AuthResult result = task.getResult();
                             if (mRequestedSignInCredential == null) {
                                 return Tasks.forResult(result);
                             } else {
-                                return result.getUser()
-                                        .linkWithCredential(mRequestedSignInCredential)
-                                        .continueWith(new Continuation<AuthResult, AuthResult>() {
+                                return SignInTracer.getInstance().trace(SignInSpan.LINK,
+                                        mRequestedSignInCredential.getProvider(),
+                                        NetworkTasks.run(getNetworkPolicy(), NetworkPolicy.LINK,
+                                                () -> result.getUser().linkWithCredential(mRequestedSignInCredential)))
+                                        .continueWith(BackgroundExecutor.get(), new Continuation<AuthResult, AuthResult>() {
                                             @Override
                                             public AuthResult then(@NonNull Task<AuthResult> task) {
                                                 if (task.isSuccessful()) {
@@ -76,7 +89,7 @@ public class LinkingSocialProviderResponseHandler extends SignInViewModelBase {
                             }
                         }
                     })
-                    .addOnCompleteListener(new OnCompleteListener<AuthResult>() {
+                    .addOnCompleteListener(BackgroundExecutor.get(), new OnCompleteListener<AuthResult>() {
                         @Override
                         public void onComplete(@NonNull Task<AuthResult> task) {
                             if (task.isSuccessful()) {
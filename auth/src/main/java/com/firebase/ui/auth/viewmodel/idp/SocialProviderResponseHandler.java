@@ -13,6 +13,7 @@ import com.firebase.ui.auth.data.remote.ProfileMerger;
 import com.firebase.ui.auth.ui.email.WelcomeBackPasswordPrompt;
 import com.firebase.ui.auth.ui.idp.WelcomeBackIdpPrompt;
 import com.firebase.ui.auth.util.data.AuthOperationManager;
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
 import com.firebase.ui.auth.util.data.ProviderUtils;
 import com.firebase.ui.auth.viewmodel.RequestCodes;
 import com.firebase.ui.auth.viewmodel.SignInViewModelBase;
@@ -50,14 +51,14 @@ public class SocialProviderResponseHandler extends SignInViewModelBase {
         AuthOperationManager.getInstance().signInAndLinkWithCredential(
                 getAuth(),
                 credential)
-                .continueWithTask(new ProfileMerger(response))
-                .addOnSuccessListener(new OnSuccessListener<AuthResult>() {
+                .continueWithTask(BackgroundExecutor.get(), new ProfileMerger(response, getNetworkPolicy(), getCancellationToken()))
+                .addOnSuccessListener(BackgroundExecutor.get(), new OnSuccessListener<AuthResult>() {
                     @Override
                     public void onSuccess(AuthResult result) {
                         handleSuccess(response, result);
                     }
                 })
-                .addOnFailureListener(new OnFailureListener() {
+                .addOnFailureListener(BackgroundExecutor.get(), new OnFailureListener() {
                     @Override
                     public void onFailure(@NonNull Exception e) {
                         if (e instanceof FirebaseAuthUserCollisionException) {
@@ -75,8 +76,8 @@ public class SocialProviderResponseHandler extends SignInViewModelBase {
                             // existing user.
                             // CASE 3: CASE 2 with an anonymous user. We link the new IDP to the
                             // same account before handling invoking a merge failure.
-                            ProviderUtils.fetchSortedProviders(getAuth(), getArguments(), email)
-                                    .addOnSuccessListener(new OnSuccessListener<List<String>>() {
+                            ProviderUtils.fetchSortedProviders(getAuth(), getArguments(), email, getCancellationToken())
+                                    .addOnSuccessListener(BackgroundExecutor.get(), new OnSuccessListener<List<String>>() {
                                         @Override
                                         public void onSuccess(List<String> providers) {
 //                                            if (providers.contains(response.getProviderType())) {
@@ -95,7 +96,7 @@ public class SocialProviderResponseHandler extends SignInViewModelBase {
                                             }
                                         }
                                     })
-                                    .addOnFailureListener(new OnFailureListener() {
+                                    .addOnFailureListener(BackgroundExecutor.get(), new OnFailureListener() {
                                         @Override
                                         public void onFailure(@NonNull Exception e) {
                                             setResult(Resource.<IdentityProviderResponse>forFailure(
@@ -5,8 +5,11 @@ import android.util.Log;
 
 import com.firebase.ui.auth.*;
 import com.firebase.ui.auth.data.model.*;
+import com.firebase.ui.auth.data.remote.DeferredOperationQueue;
 import com.firebase.ui.auth.util.*;
+import com.firebase.ui.auth.util.data.NetworkTasks;
 import com.firebase.ui.auth.util.data.ProviderUtils;
+import com.firebase.ui.auth.util.data.SignInTracer;
 import com.firebase.ui.auth.viewmodel.*;
 import com.google.android.gms.auth.api.credentials.Credential;
 import com.google.android.gms.common.api.ResolvableApiException;
@@ -31,6 +34,11 @@ public class SmartLockHandler extends AuthViewModelBase<IdentityProviderResponse
         mResponse = response;
     }
 
+    @Nullable
+    public IdentityProviderResponse getResponse() {
+        return mResponse;
+    }
+
     /**
      * Forward the result of a resolution from the Activity to the ViewModel.
      */
@@ -53,7 +61,7 @@ public class SmartLockHandler extends AuthViewModelBase<IdentityProviderResponse
     }
 
     /** Initialize saving a credential. */
-    public void saveCredentials(@Nullable Credential credential) {
+    public void saveCredentials(@Nullable final Credential credential) {
         if (credentialsDisabled()) {
             setResult(Resource.forSuccess(mResponse));
             return;
@@ -68,7 +76,9 @@ public class SmartLockHandler extends AuthViewModelBase<IdentityProviderResponse
 
         deleteUnusedCredentials();
 
-        getCredentialsClient().save(credential)
+        SignInTracer.getInstance().trace(SignInSpan.SMART_LOCK_SAVE,
+                NetworkTasks.run(getNetworkPolicy(), NetworkPolicy.CREDENTIALS_SAVE,
+                        () -> getCredentialsClient().save(credential)))
                 .addOnCompleteListener(new OnCompleteListener<Void>() {
                     @Override
                     public void onComplete(@NonNull Task<Void> task) {
@@ -88,6 +98,13 @@ public class SmartLockHandler extends AuthViewModelBase<IdentityProviderResponse
                 });
     }
 
+    /**
+     * Ask the user to confirm a save that was started elsewhere and needs a resolution.
+     */
+    public void resolveSave(@NonNull PendingIntent resolution) {
+        setResult(Resource.forFailure(new PendingIntentRequiredException(resolution, RequestCodes.CRED_SAVE)));
+    }
+
     private boolean credentialsDisabled() {
         return !getArguments().enableCredentials;
     }
@@ -98,7 +115,8 @@ public class SmartLockHandler extends AuthViewModelBase<IdentityProviderResponse
             // with duplicate credentials so delete the email ones.
             String type = ProviderUtils.providerIdToAccountType(GoogleAuthProvider.PROVIDER_ID);
             Credential credential = CredentialUtils.buildCredentialOrThrow(getCurrentUser(), "pass", type);
-            GoogleApiUtils.getCredentialsClient(getApplication()).delete(credential);
+            // Nothing waits on this, let it wait for the network rather than fail
+            DeferredOperationQueue.getInstance(getApplication()).deleteCredential(credential);
         }
     }
 }
@@ -0,0 +1,88 @@
+package com.firebase.ui.auth
+
+import android.app.Application
+import androidx.lifecycle.Observer
+import androidx.lifecycle.ViewModelProvider
+import androidx.lifecycle.ViewModelStore
+import com.firebase.ui.auth.data.model.Resource
+import com.firebase.ui.auth.data.model.State
+import com.firebase.ui.auth.data.model.User
+import com.firebase.ui.auth.testhelpers.TestConstants
+import com.firebase.ui.auth.viewmodel.OperableViewModel
+import com.firebase.ui.auth.viewmodel.OperationChannel
+import com.google.common.truth.Truth.assertThat
+import com.google.firebase.auth.EmailAuthProvider
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(RobolectricTestRunner::class)
+class AuthUIKtxTest {
+    private val response = IdentityProviderResponse.Builder(
+            User.Builder(EmailAuthProvider.PROVIDER_ID, TestConstants.EMAIL).build()
+    ).build()
+
+    private lateinit var store: ViewModelStore
+    private lateinit var handler: TestHandler
+
+    @Before
+    fun setUp() {
+        store = ViewModelStore()
+        handler = ViewModelProvider(store, ViewModelProvider.AndroidViewModelFactory
+                .getInstance(RuntimeEnvironment.application))
+                .get(TestHandler::class.java)
+    }
+
+    @After
+    fun tearDown() {
+        store.clear()
+    }
+
+    @Test
+    fun testSignInStates_doesNotConsumeResult() = runBlocking {
+        val delivered = mutableListOf<Resource<IdentityProviderResponse>>()
+        handler.operation.observeForever(Observer { delivered += it })
+        val states = async(start = CoroutineStart.UNDISPATCHED) {
+            handler.signInStates().take(2).toList()
+        }
+        yield()
+
+        handler.emit(Resource.forLoading())
+        handler.emit(Resource.forSuccess(response))
+
+        assertThat(states.await())
+                .containsExactly(SignInState.Loading, SignInState.Success(response))
+                .inOrder()
+        assertThat(delivered.map { it.state })
+                .containsExactly(State.LOADING, State.SUCCESS)
+                .inOrder()
+    }
+
+    @Test
+    fun testSignInStates_completesWhenCleared() = runBlocking {
+        val states = async(start = CoroutineStart.UNDISPATCHED) {
+            handler.signInStates().toList()
+        }
+        yield()
+
+        handler.emit(Resource.forLoading())
+        store.clear()
+
+        assertThat(states.await()).containsExactly(SignInState.Loading)
+    }
+
+    class TestHandler(application: Application) :
+            OperableViewModel<Void?, Resource<IdentityProviderResponse>>(
+                    application, OperationChannel<IdentityProviderResponse>()) {
+        fun emit(resource: Resource<IdentityProviderResponse>) = setResult(resource)
+    }
+}
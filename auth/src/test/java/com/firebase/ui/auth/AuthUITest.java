@@ -20,12 +20,15 @@ import com.firebase.ui.auth.data.model.FlowParameters;
 import com.firebase.ui.auth.testhelpers.TestConstants;
 import com.firebase.ui.auth.testhelpers.TestHelper;
 import com.firebase.ui.auth.util.ExtraConstants;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.EmailAuthProvider;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
 
 import java.util.Arrays;
 
@@ -92,4 +95,41 @@ public class AuthUITest {
         SignInIntentBuilder startIntent = mAuthUi.createSignInIntentBuilder();
         startIntent.setTosAndPrivacyPolicyUrls(TestConstants.TOS_URL, TestConstants.PRIVACY_URL);
     }
+
+    @Test
+    public void testGetInstance_capturesApplicationContext() {
+        AuthUI.resetApplicationContext();
+
+        AuthUI.getInstance(TestHelper.MOCK_APP);
+
+        assertThat(AuthUI.getApplicationContext()).isSameAs(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testGetApplicationContext_withoutInitProvider_usesDefaultApp() {
+        AuthUI.resetApplicationContext();
+
+        assertThat(AuthUI.getApplicationContext())
+                .isSameAs(FirebaseApp.getInstance().getApplicationContext());
+    }
+
+    @Test
+    public void testGetInstance_sameApp_returnsSameInstance() {
+        assertThat(AuthUI.getInstance(TestHelper.MOCK_APP)).isSameAs(mAuthUi);
+    }
+
+    @Test
+    public void testGetInstance_appDeleted_dropsInstance() {
+        FirebaseOptions options = FirebaseApp.getInstance().getOptions();
+        FirebaseApp app = FirebaseApp.initializeApp(
+                RuntimeEnvironment.application, options, "registry");
+        AuthUI first = AuthUI.getInstance(app);
+
+        app.delete();
+        FirebaseApp recreated = FirebaseApp.initializeApp(
+                RuntimeEnvironment.application, options, "registry");
+
+        assertThat(AuthUI.getInstance(recreated)).isNotSameAs(first);
+        recreated.delete();
+    }
 }
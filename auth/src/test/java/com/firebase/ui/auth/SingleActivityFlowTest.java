@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firebase.ui.auth;
+
+import android.app.Activity;
+import android.content.Intent;
+
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.ui.idp.AuthMethodPickerActivity;
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.GoogleAuthProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowActivity;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Checks how many activities are started and how long it takes before the provider picker is on
+ * screen with and without the single activity flow.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SingleActivityFlowTest {
+    private static final List<String> PROVIDERS = Arrays.asList(
+            GoogleAuthProvider.PROVIDER_ID,
+            EmailAuthProvider.PROVIDER_ID);
+    private static final int TIMED_RUNS = 7;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+    }
+
+    @Test
+    public void testSingleActivityFlow_reachesPickerWithoutHops() {
+        assertThat(countHops(false)).isEqualTo(1);
+        assertThat(countHops(true)).isEqualTo(0);
+    }
+
+    @Test
+    public void testSingleActivityFlow_fasterToInteractive() {
+        // Class loading and resource parsing would otherwise be charged to the first path run
+        countHops(false);
+        countHops(true);
+
+        long multiActivity = medianTimeToPicker(false);
+        long singleActivity = medianTimeToPicker(true);
+
+        assertThat(singleActivity).isLessThan(multiActivity);
+    }
+
+    @Test
+    public void testBuild_singleActivityFlowTargetsPicker() {
+        Intent intent = AuthUI.getInstance()
+                .createSignInIntentBuilder()
+                .setIsSingleActivityFlowEnabled(true)
+                .build();
+
+        assertThat(intent.getComponent().getClassName())
+                .isEqualTo(AuthMethodPickerActivity.class.getName());
+        assertThat(FlowParameters.fromIntent(intent).singleActivityFlow).isTrue();
+    }
+
+    /**
+     * Starts the flow and follows every started activity until the picker is resumed.
+     *
+     * @return the number of activities started before the picker
+     */
+    private int countHops(boolean singleActivityFlow) {
+        FlowParameters params = getFlowParameters(singleActivityFlow);
+        Intent intent = singleActivityFlow
+                ? AuthMethodPickerActivity.Companion.createIntent(RuntimeEnvironment.application, params)
+                : MainSignInActivity.Companion.createIntent(RuntimeEnvironment.application, params);
+
+        int hops = 0;
+        Activity activity = launch(intent);
+        while (!(activity instanceof AuthMethodPickerActivity)) {
+            ShadowActivity.IntentForResult next =
+                    Shadows.shadowOf(activity).getNextStartedActivityForResult();
+            assertThat(next).isNotNull();
+            activity = launch(next.intent);
+            hops++;
+        }
+        return hops;
+    }
+
+    /**
+     * @return the median time in nanoseconds from starting the flow to the picker being resumed
+     */
+    private long medianTimeToPicker(boolean singleActivityFlow) {
+        long[] times = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            countHops(singleActivityFlow);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[TIMED_RUNS / 2];
+    }
+
+    private Activity launch(Intent intent) {
+        Activity activity;
+        try {
+            activity = Robolectric.buildActivity(
+                    Class.forName(intent.getComponent().getClassName()).asSubclass(Activity.class),
+                    intent)
+                    .setup()
+                    .get();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        return activity;
+    }
+
+    private static FlowParameters getFlowParameters(boolean singleActivityFlow) {
+        FlowParameters params = TestHelper.getFlowParameters(PROVIDERS);
+        // SmartLock is disabled so both flows go straight to the provider choice
+        return new FlowParameters(
+                params.appName,
+                params.providers,
+                null,
+                null,
+                false,
+                singleActivityFlow);
+    }
+}
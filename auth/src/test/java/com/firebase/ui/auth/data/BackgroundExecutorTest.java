@@ -0,0 +1,168 @@
+package com.firebase.ui.auth.data;
+
+import android.os.Looper;
+
+import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.data.model.User;
+import com.firebase.ui.auth.data.remote.DeferredOperationQueue;
+import com.firebase.ui.auth.data.remote.ProfileMerger;
+import com.firebase.ui.auth.testhelpers.TestConstants;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.data.BackgroundExecutor;
+import com.firebase.ui.auth.util.data.ProviderUtils;
+import com.firebase.ui.auth.viewmodel.idp.SocialProviderResponseHandler;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.AuthCredential;
+import com.google.firebase.auth.AuthResult;
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.SignInMethodQueryResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class BackgroundExecutorTest {
+    @Mock FirebaseAuth mMockAuth;
+    @Mock FirebaseUser mMockUser;
+    @Mock AuthResult mMockResult;
+
+    private final CountDownLatch mLatch = new CountDownLatch(1);
+    private final AtomicReference<Looper> mLooper = new AtomicReference<>();
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        MockitoAnnotations.initMocks(this);
+        mExecutor = Executors.newSingleThreadExecutor();
+        AuthUI.setBackgroundExecutor(mExecutor);
+
+        when(mMockResult.getUser()).thenReturn(mMockUser);
+    }
+
+    @After
+    public void tearDown() {
+        AuthUI.setBackgroundExecutor(Runnable::run);
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testContinuations_runOffMainLooper() throws InterruptedException {
+        when(mMockAuth.fetchSignInMethodsForEmail(TestConstants.EMAIL))
+                .thenReturn(Tasks.<SignInMethodQueryResult>forResult(
+                        new SignInMethodQueryResult() {
+                            @Override
+                            public List<String> getSignInMethods() {
+                                // Only read from the continuation body
+                                recordLooper();
+                                return Collections.singletonList(
+                                        EmailAuthProvider.EMAIL_PASSWORD_SIGN_IN_METHOD);
+                            }
+                        }));
+
+        ProviderUtils.fetchSortedProviders(mMockAuth,
+                TestHelper.getFlowParameters(
+                        Collections.singletonList(EmailAuthProvider.PROVIDER_ID)),
+                TestConstants.EMAIL,
+                null);
+
+        assertRanOffMainLooper();
+    }
+
+    @Test
+    public void testProfileMerger_runsOffMainLooper() throws InterruptedException {
+        when(mMockUser.getDisplayName()).thenAnswer(recordLooper(TestConstants.NAME));
+
+        Tasks.forResult(mMockResult).continueWithTask(
+                BackgroundExecutor.get(), new ProfileMerger(newGoogleResponse()));
+
+        assertRanOffMainLooper();
+    }
+
+    @Test
+    public void testSocialProviderResponseHandler_runsOffMainLooper()
+            throws InterruptedException {
+        when(mMockUser.getDisplayName()).thenAnswer(recordLooper(TestConstants.NAME));
+        when(mMockAuth.signInWithCredential(any(AuthCredential.class)))
+                .thenReturn(Tasks.forResult(mMockResult));
+        SocialProviderResponseHandler handler =
+                new SocialProviderResponseHandler(RuntimeEnvironment.application);
+        handler.initializeForTesting(TestHelper.getFlowParameters(
+                Collections.singletonList(GoogleAuthProvider.PROVIDER_ID)),
+                mMockAuth, null);
+
+        handler.startSignIn(newGoogleResponse());
+
+        assertRanOffMainLooper();
+    }
+
+    @Test
+    public void testSignOut_runsOffMainLooper() throws InterruptedException {
+        FirebaseAuth auth = FirebaseAuth.getInstance(TestHelper.MOCK_APP);
+        doAnswer(recordLooper(null)).when(auth).signOut();
+
+        AuthUI.getInstance(TestHelper.MOCK_APP).signOut(
+                Tasks.<Void>forResult(null), Tasks.<Void>forResult(null));
+
+        assertRanOffMainLooper();
+    }
+
+    @Test
+    public void testDelete_runsOffMainLooper() throws InterruptedException {
+        when(mMockUser.delete()).thenAnswer(recordLooper(Tasks.<Void>forResult(null)));
+
+        AuthUI.getInstance(TestHelper.MOCK_APP).delete(mMockUser,
+                Tasks.<Void>forResult(null),
+                DeferredOperationQueue.getInstance(RuntimeEnvironment.application));
+
+        assertRanOffMainLooper();
+    }
+
+    private void recordLooper() {
+        mLooper.compareAndSet(null, Looper.myLooper());
+        mLatch.countDown();
+    }
+
+    private <T> Answer<T> recordLooper(final T result) {
+        return invocation -> {
+            recordLooper();
+            return result;
+        };
+    }
+
+    private void assertRanOffMainLooper() throws InterruptedException {
+        assertThat(mLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(mLooper.get()).isNotSameAs(Looper.getMainLooper());
+    }
+
+    private static IdentityProviderResponse newGoogleResponse() {
+        return new IdentityProviderResponse.Builder(
+                new User.Builder(GoogleAuthProvider.PROVIDER_ID, TestConstants.EMAIL).build())
+                .setToken(TestConstants.TOKEN)
+                .build();
+    }
+}
@@ -70,6 +70,38 @@ public class EmailLinkPersistanceManagerTest {
         assertThat(sessionRecord).isNull();
     }
 
+    @Test
+    public void testRetrieveIdpResponseForLinking_newUser_normalizedToExisting() {
+        IdentityProviderResponse response = buildIdpResponse().mutate().setNewUser(true).build();
+
+        mPersistenceManager.saveEmail(RuntimeEnvironment.application, TestConstants.EMAIL,
+                TestConstants.SESSION_ID, TestConstants.UID);
+        mPersistenceManager.saveIdpResponseForLinking(RuntimeEnvironment.application, response);
+
+        IdentityProviderResponse retrieved = mPersistenceManager
+                .retrieveSessionRecord(RuntimeEnvironment.application)
+                .getIdentityProviderResponseForLinking();
+
+        assertThat(retrieved.isNewUser()).isFalse();
+        assertThat(retrieved.getIdpToken()).isEqualTo(TestConstants.TOKEN);
+    }
+
+    @Test
+    public void testRetrieveIdpResponseForLinking_noToken_dropped() {
+        IdentityProviderResponse response = new IdentityProviderResponse.Builder(
+                new User.Builder(AuthUI.EMAIL_LINK_PROVIDER, TestConstants.EMAIL).build())
+                .build();
+
+        mPersistenceManager.saveEmail(RuntimeEnvironment.application, TestConstants.EMAIL,
+                TestConstants.SESSION_ID, TestConstants.UID);
+        mPersistenceManager.saveIdpResponseForLinking(RuntimeEnvironment.application, response);
+
+        SessionRecord sessionRecord = mPersistenceManager
+                .retrieveSessionRecord(RuntimeEnvironment.application);
+
+        assertThat(sessionRecord.getIdentityProviderResponseForLinking()).isNull();
+    }
+
     private IdentityProviderResponse buildIdpResponse() {
         User user = new User.Builder(AuthUI.EMAIL_LINK_PROVIDER, TestConstants.EMAIL)
                 .build();
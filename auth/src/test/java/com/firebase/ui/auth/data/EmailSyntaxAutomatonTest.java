@@ -0,0 +1,99 @@
+package com.firebase.ui.auth.data;
+
+import android.util.Patterns;
+import android.widget.EditText;
+
+import com.firebase.ui.auth.util.data.EmailSyntaxAutomaton;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+@RunWith(RobolectricTestRunner.class)
+public class EmailSyntaxAutomatonTest {
+    private static final String[] EMAILS = {
+            "",
+            "test@example.com",
+            "first.last+tag@sub.example.co.uk",
+            "under_score%percent-dash@ex-ample.io",
+            "a@b.c",
+            "@example.com",
+            "test@",
+            "test@example",
+            "test@example.",
+            "test@.com",
+            "test@-example.com",
+            "test@example.-com",
+            "test@@example.com",
+            "te st@example.com",
+            "tést@example.com",
+            "test@exa_mple.com",
+            "test@example.com.",
+            "test@example..com",
+            ".@example.com",
+            repeat('a', 256) + "@example.com",
+            repeat('a', 257) + "@example.com",
+            "test@" + repeat('a', 65) + ".com",
+            "test@" + repeat('a', 66) + ".com",
+            "test@example." + repeat('a', 26),
+            "test@example." + repeat('a', 27),
+    };
+
+    @Test
+    public void testMatches_sameAsPattern() {
+        for (String email : EMAILS) {
+            assertWithMessage(email)
+                    .that(EmailSyntaxAutomaton.matches(email))
+                    .isEqualTo(Patterns.EMAIL_ADDRESS.matcher(email).matches());
+        }
+    }
+
+    @Test
+    public void testMatches_null() {
+        assertThat(EmailSyntaxAutomaton.matches(null)).isFalse();
+    }
+
+    @Test
+    public void testWatcher_typing_sameAsPattern() {
+        for (String email : EMAILS) {
+            EditText editText = new EditText(RuntimeEnvironment.application);
+            EmailSyntaxAutomaton.Watcher watcher = EmailSyntaxAutomaton.Watcher.watch(editText);
+            for (int i = 0; i < email.length(); i++) {
+                editText.append(email.substring(i, i + 1));
+            }
+
+            assertWithMessage(email)
+                    .that(watcher.isValid())
+                    .isEqualTo(Patterns.EMAIL_ADDRESS.matcher(email).matches());
+        }
+    }
+
+    @Test
+    public void testWatcher_edits() {
+        EditText editText = new EditText(RuntimeEnvironment.application);
+        editText.setText("test@example.com");
+        EmailSyntaxAutomaton.Watcher watcher = EmailSyntaxAutomaton.Watcher.watch(editText);
+        assertThat(watcher.isValid()).isTrue();
+
+        editText.getText().delete(editText.length() - 4, editText.length());
+        assertThat(watcher.isValid()).isFalse();
+
+        editText.getText().insert(0, "@");
+        assertThat(watcher.isValid()).isFalse();
+
+        editText.setText("other@example.org");
+        assertThat(watcher.isValid()).isTrue();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
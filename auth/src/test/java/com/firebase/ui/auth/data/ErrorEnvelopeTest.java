@@ -0,0 +1,115 @@
+package com.firebase.ui.auth.data;
+
+import android.content.Intent;
+import android.os.Parcel;
+
+import com.firebase.ui.auth.ErrorCodes;
+import com.firebase.ui.auth.FirebaseUiException;
+import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.data.model.ErrorEnvelope;
+import com.firebase.ui.auth.data.model.UserCancellationException;
+import com.google.firebase.auth.FirebaseAuthInvalidUserException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class ErrorEnvelopeTest {
+    @Test
+    public void testErrorResponse_roundTripsCodeAndMessage() {
+        FirebaseUiException error = new FirebaseUiException(ErrorCodes.ERROR_USER_DISABLED,
+                "disabled",
+                new FirebaseAuthInvalidUserException("ERROR_USER_DISABLED", "nope"));
+
+        IdentityProviderResponse response = roundTrip(IdentityProviderResponse.from(error));
+
+        assertThat(response.isSuccessful()).isFalse();
+        assertThat(response.getError().getErrorCode()).isEqualTo(ErrorCodes.ERROR_USER_DISABLED);
+        assertThat(response.getError().getMessage()).isEqualTo("disabled");
+        assertThat(response.getError().getCause().getMessage())
+                .contains(FirebaseAuthInvalidUserException.class.getName() + ": nope");
+    }
+
+    @Test
+    public void testUserCancellation_keepsType() {
+        IdentityProviderResponse response =
+                roundTrip(IdentityProviderResponse.from(new UserCancellationException()));
+
+        assertThat(response.getError()).isInstanceOf(UserCancellationException.class);
+    }
+
+    @Test
+    public void testNonSerializableCause_isSummarized() {
+        FirebaseUiException error = new FirebaseUiException(ErrorCodes.UNKNOWN_ERROR,
+                new NonSerializableException());
+
+        IdentityProviderResponse response = roundTrip(IdentityProviderResponse.from(error));
+
+        assertThat(response.getError().getErrorCode()).isEqualTo(ErrorCodes.UNKNOWN_ERROR);
+        assertThat(response.getError().getCause().getMessage())
+                .contains(NonSerializableException.class.getName());
+    }
+
+    @Test
+    public void testCauses_areTruncated() {
+        Throwable cause = new Exception(new String(new char[10_000]).replace('\0', 'a'));
+        for (int i = 0; i < 10; i++) {
+            cause = new Exception("wrapper " + i, cause);
+        }
+
+        ErrorEnvelope envelope =
+                ErrorEnvelope.from(new FirebaseUiException(ErrorCodes.UNKNOWN_ERROR, cause));
+
+        assertThat(envelope.getCauses().length()).isAtMost(256);
+        assertThat(envelope.getCauses()).startsWith(Exception.class.getName() + ": wrapper 9");
+    }
+
+    @Test
+    public void testStackHash_groupsIdenticalErrors() {
+        int[] hashes = new int[2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ErrorEnvelope.from(new FirebaseUiException(ErrorCodes.UNKNOWN_ERROR,
+                    new IllegalStateException("" + i))).getStackHash();
+        }
+
+        assertThat(hashes[0]).isEqualTo(hashes[1]);
+    }
+
+    @Test
+    public void testErrorIntent_isSmall() {
+        Throwable cause = new Exception("root");
+        for (int i = 0; i < 5; i++) {
+            cause = new Exception("wrapper " + i, cause);
+        }
+        Intent intent = IdentityProviderResponse.getErrorIntent(
+                new FirebaseUiException(ErrorCodes.UNKNOWN_ERROR, cause));
+
+        Parcel parcel = Parcel.obtain();
+        try {
+            intent.getExtras().writeToParcel(parcel, 0);
+            // The serialized exception alone used to take several kilobytes
+            assertThat(parcel.dataSize()).isLessThan(1024);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static IdentityProviderResponse roundTrip(IdentityProviderResponse response) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            response.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return IdentityProviderResponse.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static class NonSerializableException extends Exception {
+        // Threads aren't serializable
+        private final Thread mThread = Thread.currentThread();
+    }
+}
@@ -0,0 +1,100 @@
+package com.firebase.ui.auth.data;
+
+import android.content.Intent;
+
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.data.model.FlowParametersRegistry;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.ui.HelperActivityBase;
+import com.firebase.ui.auth.util.ExtraConstants;
+import com.google.firebase.auth.EmailAuthProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class FlowParametersRegistryTest {
+    private FlowParameters mParams;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        mParams = TestHelper.getFlowParameters(
+                Collections.singletonList(EmailAuthProvider.PROVIDER_ID));
+    }
+
+    @Test
+    public void testRegister_sameInstance_reusesToken() {
+        long token = FlowParametersRegistry.register(mParams);
+
+        assertThat(token).isNotEqualTo(0);
+        assertThat(FlowParametersRegistry.register(mParams)).isEqualTo(token);
+        assertThat(FlowParametersRegistry.get(token)).isSameAs(mParams);
+    }
+
+    @Test
+    public void testFromIntent_resolvesSharedInstance() {
+        Intent intent = new Intent().putExtra(ExtraConstants.FLOW_PARAMS_TOKEN,
+                FlowParametersRegistry.register(mParams));
+
+        assertThat(intent.hasExtra(ExtraConstants.FLOW_PARAMS)).isFalse();
+        assertThat(FlowParameters.fromIntent(intent)).isSameAs(mParams);
+    }
+
+    @Test
+    public void testFromIntent_unknownToken_fallsBackToParcel() {
+        // A token from a previous process has a different salt
+        long staleToken = FlowParametersRegistry.register(mParams) ^ (1L << 40);
+        Intent intent = HelperActivityBase.withFullFlowParams(
+                new Intent().putExtra(ExtraConstants.FLOW_PARAMS_TOKEN, staleToken), mParams);
+
+        assertThat(FlowParametersRegistry.get(staleToken)).isNull();
+        assertThat(FlowParameters.fromIntent(intent).appName).isEqualTo(mParams.appName);
+    }
+
+    @Test
+    public void testRegister_manyOtherFlows_keepsRunningOne() {
+        long token = FlowParametersRegistry.register(mParams);
+        List<FlowParameters> others = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            FlowParameters other = TestHelper.getFlowParameters(
+                    Collections.singletonList(EmailAuthProvider.PROVIDER_ID));
+            others.add(other);
+            FlowParametersRegistry.register(other);
+        }
+
+        assertThat(FlowParametersRegistry.get(token)).isSameAs(mParams);
+        assertThat(others).hasSize(100);
+    }
+
+    @Test
+    public void testRestore_doesNotReplaceLiveInstance() {
+        long token = FlowParametersRegistry.register(mParams);
+        FlowParameters copy = TestHelper.getFlowParameters(
+                Collections.singletonList(EmailAuthProvider.PROVIDER_ID));
+
+        FlowParametersRegistry.restore(token, copy);
+
+        assertThat(FlowParametersRegistry.get(token)).isSameAs(mParams);
+    }
+
+    @Test
+    public void testRestore_afterProcessDeath_sharesCopy() {
+        long token = FlowParametersRegistry.register(mParams) ^ (1L << 41);
+        FlowParameters copy = TestHelper.getFlowParameters(
+                Collections.singletonList(EmailAuthProvider.PROVIDER_ID));
+
+        FlowParametersRegistry.restore(token, copy);
+        FlowParametersRegistry.restore(token, mParams);
+
+        assertThat(FlowParametersRegistry.get(token)).isSameAs(copy);
+    }
+}
@@ -0,0 +1,115 @@
+package com.firebase.ui.auth.data;
+
+import com.firebase.ui.auth.SignInSpan;
+import com.firebase.ui.auth.SignInStats;
+import com.firebase.ui.auth.util.data.LatencyHistogram;
+import com.firebase.ui.auth.util.data.SignInStatsRecorder;
+import com.google.firebase.auth.GoogleAuthProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class LatencyHistogramTest {
+    @Test
+    public void testEmpty() {
+        SignInStats.Latency latency = new LatencyHistogram().snapshot(SignInSpan.LINK, null);
+
+        assertThat(latency.getCount()).isEqualTo(0);
+        assertThat(latency.getP99Micros()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPercentiles_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        SignInStats.Latency latency = histogram.snapshot(SignInSpan.LINK, null);
+
+        assertThat(latency.getCount()).isEqualTo(1000);
+        assertThat(latency.getMaxMicros()).isEqualTo(1_000_000);
+        assertThat(latency.getMeanMicros()).isEqualTo(500_500);
+        assertWithin(latency.getP50Micros(), 500_000);
+        assertWithin(latency.getP95Micros(), 950_000);
+        assertWithin(latency.getP99Micros(), 990_000);
+    }
+
+    @Test
+    public void testPercentiles_neverExceedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+
+        SignInStats.Latency latency = histogram.snapshot(SignInSpan.LINK, null);
+
+        assertThat(latency.getP50Micros()).isEqualTo(3000);
+        assertThat(latency.getP99Micros()).isEqualTo(3000);
+    }
+
+    @Test
+    public void testRecord_hugeAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-1);
+
+        SignInStats.Latency latency = histogram.snapshot(SignInSpan.LINK, null);
+
+        assertThat(latency.getCount()).isEqualTo(2);
+        assertThat(latency.getPercentileMicros(0)).isEqualTo(0);
+        assertThat(latency.getPercentileMicros(1)).isEqualTo(latency.getMaxMicros());
+    }
+
+    @Test
+    public void testRecord_concurrent() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    histogram.record(TimeUnit.MICROSECONDS.toNanos(j));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SignInStats.Latency latency = histogram.snapshot(SignInSpan.LINK, null);
+        assertThat(latency.getCount()).isEqualTo(40_000);
+        assertThat(latency.getMaxMicros()).isEqualTo(9_999);
+    }
+
+    @Test
+    public void testRecorder_splitsByStageAndProvider() {
+        SignInStatsRecorder recorder = SignInStatsRecorder.getInstance();
+        long google = count(recorder.snapshot(), GoogleAuthProvider.PROVIDER_ID);
+        long unknown = count(recorder.snapshot(), null);
+
+        recorder.record(SignInSpan.LINK, GoogleAuthProvider.PROVIDER_ID, 1000);
+        recorder.record(SignInSpan.LINK, "oidc.unsupported", 1000);
+        recorder.record(SignInSpan.SMART_LOCK_SAVE, GoogleAuthProvider.PROVIDER_ID, 1000);
+
+        SignInStats stats = recorder.snapshot();
+        assertThat(count(stats, GoogleAuthProvider.PROVIDER_ID)).isEqualTo(google + 1);
+        assertThat(count(stats, null)).isEqualTo(unknown + 1);
+        assertThat(stats.getLatency(SignInSpan.SMART_LOCK_SAVE, GoogleAuthProvider.PROVIDER_ID))
+                .isNull();
+    }
+
+    private static long count(SignInStats stats, String providerId) {
+        SignInStats.Latency latency = stats.getLatency(SignInSpan.LINK, providerId);
+        return latency == null ? 0 : latency.getCount();
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertThat(actual).isAtLeast(expected);
+        assertThat(actual).isAtMost(expected + expected / 4);
+    }
+}
@@ -0,0 +1,133 @@
+package com.firebase.ui.auth.data;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.data.NetworkMonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetwork;
+import org.robolectric.shadows.ShadowNetworkInfo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkMonitorTest {
+    private ShadowConnectivityManager mConnectivity;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        NetworkMonitor.reset();
+        mConnectivity = shadowOf((ConnectivityManager) RuntimeEnvironment.application
+                .getSystemService(Context.CONNECTIVITY_SERVICE));
+    }
+
+    @After
+    public void tearDown() {
+        NetworkMonitor.reset();
+    }
+
+    @Test
+    public void testIsOnline_connected() {
+        setConnected(true);
+
+        NetworkMonitor monitor = NetworkMonitor.getInstance(RuntimeEnvironment.application);
+
+        assertThat(monitor.isOnline()).isTrue();
+    }
+
+    @Test
+    public void testIsOnline_followsCallbacks() {
+        setConnected(true);
+        NetworkMonitor monitor = NetworkMonitor.getInstance(RuntimeEnvironment.application);
+
+        setConnected(false);
+        onLost(1);
+
+        assertThat(monitor.isOnline()).isFalse();
+    }
+
+    @Test
+    public void testIsOnline_lostOneOfTwoNetworks_staysOnline() {
+        setConnected(true);
+        NetworkMonitor monitor = NetworkMonitor.getInstance(RuntimeEnvironment.application);
+        onAvailable(1);
+        onAvailable(2);
+
+        setConnected(false);
+        onLost(1);
+
+        assertThat(monitor.isOnline()).isTrue();
+    }
+
+    @Test
+    public void testIsOnline_lostLastNetwork_offlineWhileStillActive() {
+        setConnected(true);
+        NetworkMonitor monitor = NetworkMonitor.getInstance(RuntimeEnvironment.application);
+        onAvailable(1);
+
+        // The active network info hasn't caught up with the callback yet
+        onLost(1);
+
+        assertThat(monitor.isOnline()).isFalse();
+    }
+
+    @Test
+    public void testRunWhenOnline_offline_runsOnReconnect() {
+        setConnected(false);
+        NetworkMonitor monitor = NetworkMonitor.getInstance(RuntimeEnvironment.application);
+        AtomicInteger runs = new AtomicInteger();
+
+        monitor.runWhenOnline(runs::incrementAndGet);
+        assertThat(runs.get()).isEqualTo(0);
+
+        setConnected(true);
+        onAvailable(1);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRunWhenOnline_online_runsNow() {
+        setConnected(true);
+        AtomicInteger runs = new AtomicInteger();
+
+        NetworkMonitor.getInstance(RuntimeEnvironment.application)
+                .runWhenOnline(runs::incrementAndGet);
+
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    private void onAvailable(int netId) {
+        for (ConnectivityManager.NetworkCallback callback : mConnectivity.getNetworkCallbacks()) {
+            callback.onAvailable(ShadowNetwork.newInstance(netId));
+        }
+    }
+
+    private void onLost(int netId) {
+        for (ConnectivityManager.NetworkCallback callback : mConnectivity.getNetworkCallbacks()) {
+            callback.onLost(ShadowNetwork.newInstance(netId));
+        }
+    }
+
+    private void setConnected(boolean connected) {
+        mConnectivity.setActiveNetworkInfo(ShadowNetworkInfo.newInstance(
+                connected ? NetworkInfo.DetailedState.CONNECTED
+                        : NetworkInfo.DetailedState.DISCONNECTED,
+                ConnectivityManager.TYPE_WIFI,
+                0,
+                true,
+                connected ? NetworkInfo.State.CONNECTED : NetworkInfo.State.DISCONNECTED));
+    }
+}
@@ -0,0 +1,190 @@
+package com.firebase.ui.auth.data;
+
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.testhelpers.AutoCompleteTask;
+import com.firebase.ui.auth.util.data.NetworkTasks;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkTasksTest {
+    private static final NetworkPolicy POLICY = new NetworkPolicy.Builder()
+            .setDefaultTimeout(1000)
+            .setDefaultMaxRetries(2)
+            .setBackoff(500, 4000)
+            .setJitter(0)
+            .build();
+
+    @Test
+    public void testRun_stalledCall_timesOut() {
+        NetworkPolicy policy = new NetworkPolicy.Builder()
+                .setTimeout(NetworkPolicy.SIGN_IN, 1000)
+                .setMaxRetries(NetworkPolicy.SIGN_IN, 0)
+                .build();
+        final TaskCompletionSource<String> never = new TaskCompletionSource<>();
+
+        Task<String> task = NetworkTasks.run(policy, NetworkPolicy.SIGN_IN, never::getTask);
+
+        ShadowLooper.idleMainLooper(999, TimeUnit.MILLISECONDS);
+        assertThat(task.isComplete()).isFalse();
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertThat(task.isComplete()).isTrue();
+        assertThat(task.getException()).isInstanceOf(FirebaseNetworkException.class);
+    }
+
+    @Test
+    public void testRun_lateResultAfterTimeout_isIgnored() {
+        NetworkPolicy policy = new NetworkPolicy.Builder()
+                .setDefaultTimeout(1000)
+                .setDefaultMaxRetries(0)
+                .build();
+        final TaskCompletionSource<String> late = new TaskCompletionSource<>();
+
+        Task<String> task = NetworkTasks.run(policy, NetworkPolicy.SIGN_IN, late::getTask);
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        late.setResult("late");
+        ShadowLooper.idleMainLooper();
+
+        assertThat(task.isSuccessful()).isFalse();
+    }
+
+    @Test
+    public void testRun_lateSuccessWhileRetrying_isDelivered() {
+        final AtomicInteger calls = new AtomicInteger();
+        final TaskCompletionSource<String> late = new TaskCompletionSource<>();
+
+        Task<String> task = NetworkTasks.run(POLICY, NetworkPolicy.SIGN_IN, () -> {
+            calls.incrementAndGet();
+            return late.getTask();
+        });
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        late.setResult("late");
+        ShadowLooper.idleMainLooper(10, TimeUnit.SECONDS);
+
+        assertThat(task.getResult()).isEqualTo("late");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRun_createUser_neverTimesOut() {
+        final TaskCompletionSource<String> slow = new TaskCompletionSource<>();
+
+        Task<String> task = NetworkTasks.run(
+                NetworkPolicy.DEFAULT, NetworkPolicy.CREATE_USER, slow::getTask);
+        ShadowLooper.idleMainLooper(1, TimeUnit.MINUTES);
+        assertThat(task.isComplete()).isFalse();
+
+        slow.setResult("created");
+        ShadowLooper.idleMainLooper();
+        assertThat(task.getResult()).isEqualTo("created");
+    }
+
+    @Test
+    public void testRun_retryableFailure_retriesWithBackoff() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        Task<String> task = NetworkTasks.run(POLICY, NetworkPolicy.SIGN_IN, () -> {
+            if (calls.incrementAndGet() == 1) {
+                return AutoCompleteTask.forFailure(new FirebaseNetworkException("offline"));
+            }
+            return AutoCompleteTask.forSuccess("result");
+        });
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(task.isComplete()).isFalse();
+
+        ShadowLooper.idleMainLooper(499, TimeUnit.MILLISECONDS);
+        assertThat(calls.get()).isEqualTo(1);
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(task.getResult()).isEqualTo("result");
+    }
+
+    @Test
+    public void testRun_retriesAreBounded() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        Task<String> task = NetworkTasks.run(POLICY, NetworkPolicy.SIGN_IN, () -> {
+            calls.incrementAndGet();
+            return AutoCompleteTask.forFailure(new FirebaseNetworkException("offline"));
+        });
+
+        // 500ms then 1000ms of backoff
+        ShadowLooper.idleMainLooper(1500, TimeUnit.MILLISECONDS);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(task.getException()).isInstanceOf(FirebaseNetworkException.class);
+    }
+
+    @Test
+    public void testRun_nonRetryableFailure_failsImmediately() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        Task<String> task = NetworkTasks.run(POLICY, NetworkPolicy.SIGN_IN, () -> {
+            calls.incrementAndGet();
+            return AutoCompleteTask.forFailure(
+                    new FirebaseAuthInvalidCredentialsException("ERROR_WRONG_PASSWORD", ""));
+        });
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(task.getException())
+                .isInstanceOf(FirebaseAuthInvalidCredentialsException.class);
+    }
+
+    @Test
+    public void testRun_createUser_notRetriedByDefault() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        NetworkTasks.run(NetworkPolicy.DEFAULT, NetworkPolicy.CREATE_USER, () -> {
+            calls.incrementAndGet();
+            return AutoCompleteTask.forFailure(new FirebaseNetworkException("offline"));
+        });
+        ShadowLooper.idleMainLooper(10, TimeUnit.SECONDS);
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIsRetryable() {
+        assertThat(NetworkTasks.isRetryable(new FirebaseNetworkException("offline"))).isTrue();
+        assertThat(NetworkTasks.isRetryable(
+                new ApiException(new Status(CommonStatusCodes.NETWORK_ERROR)))).isTrue();
+        assertThat(NetworkTasks.isRetryable(
+                new ApiException(new Status(CommonStatusCodes.TIMEOUT)))).isTrue();
+        assertThat(NetworkTasks.isRetryable(
+                new ResolvableApiException(new Status(CommonStatusCodes.RESOLUTION_REQUIRED))))
+                .isFalse();
+        assertThat(NetworkTasks.isRetryable(
+                new FirebaseAuthInvalidCredentialsException("ERROR_WRONG_PASSWORD", "")))
+                .isFalse();
+        assertThat(NetworkTasks.isRetryable(
+                new FirebaseAuthInvalidCredentialsException("ERROR_RETRY_PHONE_AUTH", "")))
+                .isFalse();
+    }
+
+    @Test
+    public void testBackoff_isBounded() {
+        assertThat(POLICY.getBackoffMillis(0)).isEqualTo(500);
+        assertThat(POLICY.getBackoffMillis(1)).isEqualTo(1000);
+        assertThat(POLICY.getBackoffMillis(3)).isEqualTo(4000);
+        assertThat(POLICY.getBackoffMillis(10)).isEqualTo(4000);
+    }
+}
@@ -0,0 +1,107 @@
+package com.firebase.ui.auth.data;
+
+import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.SignInSpan;
+import com.firebase.ui.auth.SignInStats;
+import com.firebase.ui.auth.testhelpers.AutoCompleteTask;
+import com.firebase.ui.auth.util.data.SignInTracer;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.auth.GoogleAuthProvider;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class SignInTracerTest {
+    private final List<SignInSpan> mSpans = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        AuthUI.setMetricsListener(null);
+        AuthUI.setStatsEnabled(false);
+    }
+
+    @Test
+    public void testTrace_withoutListener_isNoOp() {
+        Task<String> task = spy(AutoCompleteTask.forSuccess("result"));
+
+        assertThat(SignInTracer.getInstance().trace(SignInSpan.LINK, task)).isSameAs(task);
+        verify(task, never()).addOnCompleteListener(any(OnCompleteListener.class));
+        assertThat(SignInTracer.getInstance().isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testTrace_statsEnabled_recordsWithoutListener() {
+        AuthUI.setStatsEnabled(true);
+        long before = linkCount();
+
+        SignInTracer.getInstance().trace(SignInSpan.LINK, GoogleAuthProvider.PROVIDER_ID,
+                AutoCompleteTask.forSuccess("result"));
+
+        assertThat(linkCount()).isEqualTo(before + 1);
+        assertThat(mSpans).isEmpty();
+    }
+
+    @Test
+    public void testTrace_reportsOutcome() {
+        AuthUI.setMetricsListener(mSpans::add);
+
+        SignInTracer.getInstance().trace(SignInSpan.FIREBASE_SIGN_IN,
+                AutoCompleteTask.forSuccess("result"));
+        SignInTracer.getInstance().trace(SignInSpan.LINK,
+                AutoCompleteTask.<String>forFailure(new FirebaseNetworkException("offline")));
+
+        assertThat(mSpans).hasSize(2);
+        assertThat(mSpans.get(0).getStage()).isEqualTo(SignInSpan.FIREBASE_SIGN_IN);
+        assertThat(mSpans.get(0).getOutcome()).isEqualTo(SignInSpan.OUTCOME_SUCCESS);
+        assertThat(mSpans.get(1).getStage()).isEqualTo(SignInSpan.LINK);
+        assertThat(mSpans.get(1).getOutcome()).isEqualTo(SignInSpan.OUTCOME_FAILURE);
+    }
+
+    @Test
+    public void testSpans_shareTraceIdOfFlow() {
+        AuthUI.setMetricsListener(mSpans::add);
+        SignInTracer tracer = SignInTracer.getInstance();
+
+        SignInTracer.Span flow = tracer.startFlow();
+        tracer.start(SignInSpan.PROVIDER_SDK).end(SignInSpan.OUTCOME_CANCELLED);
+        flow.end(SignInSpan.OUTCOME_CANCELLED);
+        tracer.startFlow().end(SignInSpan.OUTCOME_SUCCESS);
+
+        assertThat(mSpans).hasSize(3);
+        assertThat(mSpans.get(0).getTraceId()).isEqualTo(mSpans.get(1).getTraceId());
+        assertThat(mSpans.get(2).getTraceId()).isNotEqualTo(mSpans.get(1).getTraceId());
+        assertThat(mSpans.get(1).getDurationNanos()).isAtLeast(0L);
+    }
+
+    @Test
+    public void testSpan_endsOnce() {
+        AuthUI.setMetricsListener(mSpans::add);
+
+        SignInTracer.Span span = SignInTracer.getInstance().start(SignInSpan.SMART_LOCK_SAVE);
+        span.end(SignInSpan.OUTCOME_SUCCESS);
+        span.end(SignInSpan.OUTCOME_FAILURE);
+
+        assertThat(mSpans).hasSize(1);
+        assertThat(mSpans.get(0).getOutcome()).isEqualTo(SignInSpan.OUTCOME_SUCCESS);
+    }
+
+    private static long linkCount() {
+        SignInStats.Latency latency = AuthUI.getStatsSnapshot()
+                .getLatency(SignInSpan.LINK, GoogleAuthProvider.PROVIDER_ID);
+        return latency == null ? 0 : latency.getCount();
+    }
+}
@@ -0,0 +1,214 @@
+package com.firebase.ui.auth.data.remote;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.Intent;
+
+import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.NetworkPolicy;
+import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.data.model.User;
+import com.firebase.ui.auth.testhelpers.AutoCompleteTask;
+import com.firebase.ui.auth.testhelpers.TestConstants;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.ui.HelperActivityBase;
+import com.firebase.ui.auth.ui.credentials.CredentialSaveActivity;
+import com.firebase.ui.auth.util.ExtraConstants;
+import com.firebase.ui.auth.viewmodel.RequestCodes;
+import com.google.android.gms.auth.api.credentials.Credential;
+import com.google.android.gms.auth.api.credentials.CredentialsClient;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.auth.EmailAuthProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowActivity;
+
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CredentialSaveWorker} and the background save of {@link
+ * HelperActivityBase#startSaveCredentials}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CredentialSaveWorkerTest {
+
+    @Mock CredentialsClient mMockCredentials;
+
+    private Activity mActivity;
+    private FlowParameters mParams;
+    private IdentityProviderResponse mResponse;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        MockitoAnnotations.initMocks(this);
+
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        FlowParameters params = TestHelper.getFlowParameters(Collections.singletonList(
+                EmailAuthProvider.PROVIDER_ID));
+        mParams = new FlowParameters(params.appName, params.providers, null, null, true, false, true);
+        mResponse = new IdentityProviderResponse.Builder(
+                new User.Builder(EmailAuthProvider.PROVIDER_ID, TestConstants.EMAIL).build()
+        ).build();
+    }
+
+    @After
+    public void tearDown() {
+        CredentialSaveWorker.getInstance().setCredentialsClient(null);
+    }
+
+    @Test
+    public void testSave_success() {
+        when(mMockCredentials.save(any(Credential.class)))
+                .thenReturn(AutoCompleteTask.<Void>forSuccess(null));
+
+        Task<Void> task = CredentialSaveWorker.getInstance().save(mActivity,
+                mMockCredentials,
+                NetworkPolicy.DEFAULT,
+                mParams,
+                TestHelper.getMockFirebaseUser(),
+                mResponse,
+                TestConstants.PASSWORD);
+
+        verify(mMockCredentials).save(any(Credential.class));
+        assertThat(task.isSuccessful()).isTrue();
+        assertThat(Shadows.shadowOf(mActivity).getNextStartedActivity()).isNull();
+    }
+
+    @Test
+    public void testSave_resolution_leftToCaller() {
+        PendingIntent resolution = newResolution();
+        when(mMockCredentials.save(any(Credential.class)))
+                .thenReturn(AutoCompleteTask.<Void>forFailure(newResolvableException(resolution)));
+
+        Task<Void> task = CredentialSaveWorker.getInstance().save(mActivity,
+                mMockCredentials,
+                NetworkPolicy.DEFAULT,
+                mParams,
+                TestHelper.getMockFirebaseUser(),
+                mResponse,
+                TestConstants.PASSWORD);
+
+        assertThat(task.getException()).isInstanceOf(ResolvableApiException.class);
+        assertThat(Shadows.shadowOf(mActivity).getNextStartedActivity()).isNull();
+    }
+
+    @Test
+    public void testSave_credentialsDisabled_doesNothing() {
+        FlowParameters params = new FlowParameters(
+                mParams.appName, mParams.providers, null, null, false, false, true);
+
+        Task<Void> task = CredentialSaveWorker.getInstance().save(mActivity,
+                mMockCredentials,
+                NetworkPolicy.DEFAULT,
+                params,
+                TestHelper.getMockFirebaseUser(),
+                mResponse,
+                TestConstants.PASSWORD);
+
+        verify(mMockCredentials, never()).save(any(Credential.class));
+        assertThat(task.isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void testStartSaveCredentials_finishesOnceSaved() {
+        TaskCompletionSource<Void> save = new TaskCompletionSource<>();
+        when(mMockCredentials.save(any(Credential.class))).thenReturn(save.getTask());
+        FlowActivity activity = launchFlowActivity();
+
+        activity.startSaveCredentials(
+                TestHelper.getMockFirebaseUser(), mResponse, TestConstants.PASSWORD);
+        assertThat(activity.isFinishing()).isFalse();
+
+        save.setResult(null);
+        assertThat(activity.isFinishing()).isTrue();
+        assertThat(Shadows.shadowOf(activity).getResultCode()).isEqualTo(Activity.RESULT_OK);
+        assertThat(Shadows.shadowOf(activity).getNextStartedActivity()).isNull();
+    }
+
+    @Test
+    public void testStartSaveCredentials_lateResolution_startsSaveActivityFromFlow() {
+        TaskCompletionSource<Void> save = new TaskCompletionSource<>();
+        when(mMockCredentials.save(any(Credential.class))).thenReturn(save.getTask());
+        FlowActivity activity = launchFlowActivity();
+
+        activity.startSaveCredentials(
+                TestHelper.getMockFirebaseUser(), mResponse, TestConstants.PASSWORD);
+        PendingIntent resolution = newResolution();
+        save.setException(newResolvableException(resolution));
+
+        assertThat(activity.isFinishing()).isFalse();
+        ShadowActivity.IntentForResult next =
+                Shadows.shadowOf(activity).getNextStartedActivityForResult();
+        assertThat(next.requestCode).isEqualTo(RequestCodes.CRED_SAVE_FLOW);
+        assertThat(next.intent.getComponent().getClassName())
+                .isEqualTo(CredentialSaveActivity.class.getName());
+        assertThat(next.intent.getFlags() & Intent.FLAG_ACTIVITY_NEW_TASK).isEqualTo(0);
+        assertThat((PendingIntent) next.intent.getParcelableExtra(ExtraConstants.PENDING_INTENT))
+                .isEqualTo(resolution);
+    }
+
+    @Test
+    public void testStartSaveCredentials_nonResolvableFailure_stillFinishes() {
+        TaskCompletionSource<Void> save = new TaskCompletionSource<>();
+        when(mMockCredentials.save(any(Credential.class))).thenReturn(save.getTask());
+        FlowActivity activity = launchFlowActivity();
+
+        activity.startSaveCredentials(
+                TestHelper.getMockFirebaseUser(), mResponse, TestConstants.PASSWORD);
+        save.setException(new ApiException(new Status(CommonStatusCodes.DEVELOPER_ERROR)));
+
+        assertThat(activity.isFinishing()).isTrue();
+        assertThat(Shadows.shadowOf(activity).getResultCode()).isEqualTo(Activity.RESULT_OK);
+        assertThat(Shadows.shadowOf(activity).getNextStartedActivity()).isNull();
+    }
+
+    private FlowActivity launchFlowActivity() {
+        CredentialSaveWorker.getInstance().setCredentialsClient(mMockCredentials);
+        Intent intent = HelperActivityBase.withFullFlowParams(
+                new Intent(RuntimeEnvironment.application, FlowActivity.class), mParams);
+        ActivityController<FlowActivity> controller =
+                Robolectric.buildActivity(FlowActivity.class, intent);
+        controller.get().setTheme(R.style.FirebaseUI);
+        return controller.setup().get();
+    }
+
+    private static PendingIntent newResolution() {
+        return PendingIntent.getActivity(RuntimeEnvironment.application, 0, new Intent(), 0);
+    }
+
+    private static ResolvableApiException newResolvableException(PendingIntent resolution) {
+        return new ResolvableApiException(
+                new Status(CommonStatusCodes.RESOLUTION_REQUIRED, "", resolution));
+    }
+
+    public static class FlowActivity extends HelperActivityBase {
+        @Override
+        public void showProgress(int message) {}
+
+        @Override
+        public void hideProgress() {}
+    }
+}
@@ -0,0 +1,208 @@
+package com.firebase.ui.auth.data.remote;
+
+import com.firebase.ui.auth.testhelpers.TestConstants;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.data.NetworkMonitor;
+import com.google.android.gms.auth.api.credentials.Credential;
+import com.google.android.gms.auth.api.credentials.CredentialsClient;
+import com.google.android.gms.auth.api.credentials.IdentityProviders;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.UserProfileChangeRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeferredOperationQueueTest {
+    @Mock CredentialsClient mMockCredentials;
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        MockitoAnnotations.initMocks(this);
+        NetworkMonitor.reset();
+        mFile = new File(RuntimeEnvironment.application.getFilesDir(), "deferred_test");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        NetworkMonitor.reset();
+        mFile.delete();
+    }
+
+    @Test
+    public void testDeleteCredential_success_removesOperation() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forResult(null));
+        DeferredOperationQueue queue = newQueue();
+
+        queue.deleteCredential(newEmailCredential());
+
+        ArgumentCaptor<Credential> captor = ArgumentCaptor.forClass(Credential.class);
+        verify(mMockCredentials).delete(captor.capture());
+        assertThat(captor.getValue().getId()).isEqualTo(TestConstants.EMAIL);
+        // Only a placeholder is sent to Smart Lock, the real password never touches the disk
+        assertThat(captor.getValue().getPassword()).isNotEqualTo(TestConstants.PASSWORD);
+        assertThat(queue.size()).isEqualTo(0);
+        assertThat(newQueue().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteCredential_retryableFailure_keptForNextStart() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forException(new FirebaseNetworkException("offline")));
+        DeferredOperationQueue queue = newQueue();
+
+        queue.deleteCredential(newEmailCredential());
+
+        assertThat(queue.size()).isEqualTo(1);
+
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forResult(null));
+        DeferredOperationQueue restarted = newQueue();
+        assertThat(restarted.size()).isEqualTo(1);
+        restarted.drain();
+        assertThat(restarted.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteCredential_retryableFailure_givesUpAfterMaxAttempts() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forException(new FirebaseNetworkException("offline")));
+        DeferredOperationQueue queue = newQueue();
+
+        queue.deleteCredential(newEmailCredential());
+        for (int i = 1; i < DeferredOperationQueue.MAX_ATTEMPTS; i++) {
+            queue.drain();
+        }
+
+        verify(mMockCredentials, times(DeferredOperationQueue.MAX_ATTEMPTS))
+                .delete(any(Credential.class));
+        assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteCredential_nonRetryableFailure_dropped() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forException(new ApiException(
+                        new Status(CommonStatusCodes.DEVELOPER_ERROR))));
+        DeferredOperationQueue queue = newQueue();
+
+        queue.deleteCredential(newEmailCredential());
+
+        verify(mMockCredentials, times(1)).delete(any(Credential.class));
+        assertThat(queue.size()).isEqualTo(0);
+        assertThat(newQueue().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteCredential_sameCredential_coalesced() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forException(new FirebaseNetworkException("offline")));
+        DeferredOperationQueue queue = newQueue();
+
+        queue.deleteCredential(newEmailCredential());
+        queue.deleteCredential(newEmailCredential());
+        queue.deleteCredential(new Credential.Builder(TestConstants.EMAIL)
+                .setAccountType(IdentityProviders.GOOGLE)
+                .build());
+
+        assertThat(newQueue().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testManyOperations_fileCompacted() {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forResult(null));
+        DeferredOperationQueue queue = newQueue();
+
+        for (int i = 0; i < 100; i++) {
+            queue.deleteCredential(new Credential.Builder("user" + i + "@example.com")
+                    .setPassword(TestConstants.PASSWORD)
+                    .build());
+        }
+
+        assertThat(newQueue().size()).isEqualTo(0);
+        // 200 records uncompacted
+        assertThat(mFile.length()).isLessThan(1000L);
+    }
+
+    @Test
+    public void testLoad_truncatedRecord_keepsCompleteOnes() throws IOException {
+        when(mMockCredentials.delete(any(Credential.class)))
+                .thenReturn(Tasks.<Void>forException(new FirebaseNetworkException("offline")));
+        newQueue().deleteCredential(newEmailCredential());
+
+        FileOutputStream out = new FileOutputStream(mFile, true);
+        out.write(new byte[]{1, 0});
+        out.close();
+
+        assertThat(newQueue().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdateProfile_signedOut_dropped() {
+        DeferredOperationQueue queue = newQueue();
+
+        queue.updateProfile("some-uid", TestConstants.NAME, null);
+
+        assertThat(queue.size()).isEqualTo(0);
+        verify(mMockCredentials, never()).delete(any(Credential.class));
+    }
+
+    @Test
+    public void testProfileRequest_profileSetSinceQueued_skipped() {
+        FirebaseUser user = TestHelper.getMockFirebaseUser();
+
+        assertThat(DeferredOperationQueue.getProfileRequest(
+                user, "Queued Name", "https://example.com/queued.png")).isNull();
+    }
+
+    @Test
+    public void testProfileRequest_onlyFillsEmptyFields() {
+        FirebaseUser user = TestHelper.getMockFirebaseUser();
+        when(user.getDisplayName()).thenReturn(null);
+
+        UserProfileChangeRequest request = DeferredOperationQueue.getProfileRequest(
+                user, TestConstants.NAME, "https://example.com/queued.png");
+
+        assertThat(request.getDisplayName()).isEqualTo(TestConstants.NAME);
+        assertThat(request.getPhotoUri()).isNull();
+    }
+
+    private DeferredOperationQueue newQueue() {
+        return new DeferredOperationQueue(RuntimeEnvironment.application, mFile, mMockCredentials);
+    }
+
+    private static Credential newEmailCredential() {
+        return new Credential.Builder(TestConstants.EMAIL)
+                .setPassword(TestConstants.PASSWORD)
+                .build();
+    }
+}
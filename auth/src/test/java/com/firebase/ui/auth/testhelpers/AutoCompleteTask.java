@@ -88,6 +88,13 @@ public class AutoCompleteTask<TResult> extends Task<TResult> {
         return this;
     }
 
+    @NonNull
+    @Override
+    public Task<TResult> addOnCompleteListener(@NonNull Executor executor,
+                                               @NonNull OnCompleteListener<TResult> onCompleteListener) {
+        return addOnCompleteListener(onCompleteListener);
+    }
+
     @NonNull
     @Override
     public Task<TResult> addOnSuccessListener(@NonNull OnSuccessListener<? super TResult> onSuccessListener) {
@@ -101,7 +108,8 @@ public class AutoCompleteTask<TResult> extends Task<TResult> {
     @Override
     public Task<TResult> addOnSuccessListener(@NonNull Executor executor, @NonNull OnSuccessListener
             onSuccessListener) {
-        throw new RuntimeException("Method not implemented");
+        // Executors are ignored so tests stay synchronous
+        return addOnSuccessListener(onSuccessListener);
     }
 
     @NonNull
@@ -127,7 +135,7 @@ public class AutoCompleteTask<TResult> extends Task<TResult> {
     @Override
     public Task<TResult> addOnFailureListener(@NonNull Executor executor,
                                               @NonNull OnFailureListener onFailureListener) {
-        throw new RuntimeException("Method not implemented");
+        return addOnFailureListener(onFailureListener);
     }
 
     @NonNull
@@ -159,6 +167,22 @@ public class AutoCompleteTask<TResult> extends Task<TResult> {
         }
     }
 
+    @NonNull
+    @Override
+    public <TContinuationResult> Task<TContinuationResult> continueWith(
+            @NonNull Executor executor,
+            @NonNull Continuation<TResult, TContinuationResult> continuation) {
+        return continueWith(continuation);
+    }
+
+    @NonNull
+    @Override
+    public <TContinuationResult> Task<TContinuationResult> continueWithTask(
+            @NonNull Executor executor,
+            @NonNull Continuation<TResult, Task<TContinuationResult>> continuation) {
+        return continueWithTask(continuation);
+    }
+
     @Override
     public TResult getResult(@NonNull Class aClass) throws Throwable {
         if (mSuccess) {
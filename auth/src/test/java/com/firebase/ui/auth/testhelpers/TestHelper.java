@@ -51,6 +51,8 @@ public final class TestHelper {
     public static void initialize() {
         spyContextAndResources();
         AuthUI.setApplicationContext(RuntimeEnvironment.application);
+        // Run continuations inline so handlers deliver their results synchronously
+        AuthUI.setBackgroundExecutor(Runnable::run);
         initializeApp(RuntimeEnvironment.application);
         initializeProviders();
     }
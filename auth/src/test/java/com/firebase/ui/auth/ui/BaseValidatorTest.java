@@ -0,0 +1,92 @@
+package com.firebase.ui.auth.ui;
+
+import android.text.SpannableStringBuilder;
+import android.view.ContextThemeWrapper;
+
+import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.util.ui.fieldvalidators.BaseValidator;
+import com.firebase.ui.auth.util.ui.fieldvalidators.RequiredFieldValidator;
+import com.google.android.material.textfield.TextInputLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class BaseValidatorTest {
+    private TextInputLayout mLayout;
+
+    @Before
+    public void setUp() {
+        mLayout = spy(new TextInputLayout(
+                new ContextThemeWrapper(RuntimeEnvironment.application, R.style.FirebaseUI)));
+    }
+
+    @Test
+    public void testValidate_valid_doesNotTouchLayout() {
+        BaseValidator validator = new RequiredFieldValidator(mLayout, "required");
+
+        assertThat(validator.validate("text")).isTrue();
+        verify(mLayout, never()).setError(any(CharSequence.class));
+    }
+
+    @Test
+    public void testValidate_sameText_setsErrorOnce() {
+        CountingValidator validator = new CountingValidator(mLayout);
+
+        assertThat(validator.validate(new SpannableStringBuilder("bad"))).isFalse();
+        assertThat(validator.validate("bad")).isFalse();
+
+        assertThat(validator.mCalls.get()).isEqualTo(1);
+        verify(mLayout, times(1)).setError(any(CharSequence.class));
+        assertThat(mLayout.getError().toString()).isEqualTo("bad input");
+    }
+
+    @Test
+    public void testValidate_errorClearedElsewhere_showsItAgain() {
+        CountingValidator validator = new CountingValidator(mLayout);
+        validator.validate("bad");
+
+        mLayout.setError(null);
+        assertThat(validator.validate("bad")).isFalse();
+
+        assertThat(validator.mCalls.get()).isEqualTo(1);
+        assertThat(mLayout.getError().toString()).isEqualTo("bad input");
+    }
+
+    @Test
+    public void testValidate_textChanged_validatesAgain() {
+        CountingValidator validator = new CountingValidator(mLayout);
+        validator.validate("bad");
+
+        assertThat(validator.validate("good")).isTrue();
+        assertThat(validator.mCalls.get()).isEqualTo(2);
+        assertThat(mLayout.getError()).isNull();
+    }
+
+    private static final class CountingValidator extends BaseValidator {
+        final AtomicInteger mCalls = new AtomicInteger();
+
+        CountingValidator(TextInputLayout errorContainer) {
+            super(errorContainer);
+            mErrorMessage = "bad input";
+        }
+
+        @Override
+        protected boolean isValid(CharSequence charSequence) {
+            mCalls.incrementAndGet();
+            return !"bad".contentEquals(charSequence);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.firebase.ui.auth.ui;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ServiceInfo;
+import android.net.Uri;
+
+import com.firebase.ui.auth.util.ui.CustomTabsSessionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowApplication;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.List;
+
+import androidx.browser.customtabs.CustomTabsService;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class CustomTabsSessionManagerTest {
+    private static final String BROWSER = "com.example.browser";
+    private static final String URL = "https://example.com/terms";
+
+    private ShadowApplication mApplication;
+
+    @Before
+    public void setUp() {
+        CustomTabsSessionManager.reset();
+        mApplication = Shadows.shadowOf(RuntimeEnvironment.application);
+
+        ResolveInfo activity = new ResolveInfo();
+        activity.activityInfo = new ActivityInfo();
+        activity.activityInfo.packageName = BROWSER;
+        ResolveInfo service = new ResolveInfo();
+        service.serviceInfo = new ServiceInfo();
+        service.serviceInfo.packageName = BROWSER;
+        Shadows.shadowOf(RuntimeEnvironment.application.getPackageManager())
+                .addResolveInfoForIntent(
+                        new Intent(Intent.ACTION_VIEW, Uri.parse("http://")), activity);
+        Shadows.shadowOf(RuntimeEnvironment.application.getPackageManager())
+                .addResolveInfoForIntent(
+                        new Intent(CustomTabsService.ACTION_CUSTOM_TABS_CONNECTION)
+                                .setPackage(BROWSER),
+                        service);
+
+        // We only care about the binding, not talking to a browser
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        CustomTabsSessionManager.reset();
+    }
+
+    @Test
+    public void testMayLaunchUrls_bindsOnce() {
+        CustomTabsSessionManager manager = CustomTabsSessionManager.getInstance();
+
+        manager.mayLaunchUrls(RuntimeEnvironment.application, URL);
+        manager.mayLaunchUrls(RuntimeEnvironment.application, URL);
+
+        assertThat(mApplication.getBoundServiceConnections()).hasSize(1);
+    }
+
+    @Test
+    public void testServiceDisconnected_unbindsBeforeRebinding() {
+        CustomTabsSessionManager manager = CustomTabsSessionManager.getInstance();
+        manager.mayLaunchUrls(RuntimeEnvironment.application, URL);
+        List<ServiceConnection> bound = mApplication.getBoundServiceConnections();
+        assertThat(bound).hasSize(1);
+        ServiceConnection connection = bound.get(0);
+
+        connection.onServiceDisconnected(new ComponentName(BROWSER, "Service"));
+
+        assertThat(mApplication.getUnboundServiceConnections()).containsExactly(connection);
+        assertThat(mApplication.getBoundServiceConnections()).isEmpty();
+
+        manager.mayLaunchUrls(RuntimeEnvironment.application, URL);
+        assertThat(mApplication.getBoundServiceConnections()).containsExactly(connection);
+    }
+}
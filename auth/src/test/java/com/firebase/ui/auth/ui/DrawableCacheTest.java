@@ -0,0 +1,49 @@
+package com.firebase.ui.auth.ui;
+
+import android.graphics.drawable.Drawable;
+
+import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.util.ui.DrawableCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class DrawableCacheTest {
+    private DrawableCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = DrawableCache.getInstance();
+        mCache.clear();
+    }
+
+    @Test
+    public void testGet_sameIcon_sharesState() {
+        Drawable first = mCache.get(RuntimeEnvironment.application,
+                R.drawable.fui_ic_googleg_color_24dp);
+        Drawable second = mCache.get(RuntimeEnvironment.application,
+                R.drawable.fui_ic_googleg_color_24dp);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getConstantState()).isSameAs(first.getConstantState());
+        assertThat(mCache.getMissCount()).isEqualTo(1);
+        assertThat(mCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGet_nightMode_isCachedSeparately() {
+        mCache.get(RuntimeEnvironment.application, R.drawable.fui_ic_facebook_white_22dp);
+
+        RuntimeEnvironment.setQualifiers("+night");
+        mCache.get(RuntimeEnvironment.application, R.drawable.fui_ic_facebook_white_22dp);
+
+        assertThat(mCache.getMissCount()).isEqualTo(2);
+        assertThat(mCache.getHitCount()).isEqualTo(0);
+    }
+}
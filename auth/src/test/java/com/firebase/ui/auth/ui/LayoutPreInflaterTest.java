@@ -0,0 +1,120 @@
+package com.firebase.ui.auth.ui;
+
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.ui.LayoutPreInflater;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.AppCompatTextView;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class LayoutPreInflaterTest {
+    private AppCompatActivity mActivity;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        LayoutPreInflater.getInstance().clear();
+
+        ActivityController<AppCompatActivity> controller =
+                Robolectric.buildActivity(AppCompatActivity.class);
+        controller.get().setTheme(R.style.FirebaseUI);
+        mActivity = controller.setup().get();
+    }
+
+    @After
+    public void tearDown() {
+        LayoutPreInflater.getInstance().clear();
+    }
+
+    @Test
+    public void testTake_movesViewOntoActivityOnce() {
+        LayoutPreInflater inflater = LayoutPreInflater.getInstance();
+        inflater.preInflate(mActivity, R.style.FirebaseUI, R.layout.fui_sign_in_layout);
+
+        View view = inflater.take(mActivity, R.layout.fui_sign_in_layout);
+
+        assertThat(view).isNotNull();
+        assertThat(((MutableContextWrapper) view.getContext()).getBaseContext())
+                .isSameAs(mActivity);
+        assertThat(inflater.take(mActivity, R.layout.fui_sign_in_layout)).isNull();
+    }
+
+    @Test
+    public void testPreInflate_usesAppCompatViews() {
+        LayoutPreInflater inflater = LayoutPreInflater.getInstance();
+        inflater.preInflate(mActivity, R.style.FirebaseUI, R.layout.fui_sign_in_layout);
+
+        List<Class<?>> classes = new ArrayList<>();
+        collectClasses(inflater.take(mActivity, R.layout.fui_sign_in_layout), classes);
+
+        assertThat(classes).contains(AppCompatTextView.class);
+        assertThat(classes).doesNotContain(TextView.class);
+    }
+
+    @Test
+    @Config(qualifiers = "night")
+    public void testPreInflate_usesActivityConfiguration() {
+        LayoutPreInflater inflater = LayoutPreInflater.getInstance();
+        inflater.preInflate(mActivity, R.style.FirebaseUI, R.layout.fui_sign_in_layout);
+
+        View view = inflater.take(mActivity, R.layout.fui_sign_in_layout);
+
+        int nightMode = view.getResources().getConfiguration().uiMode
+                & Configuration.UI_MODE_NIGHT_MASK;
+        assertThat(nightMode).isEqualTo(Configuration.UI_MODE_NIGHT_YES);
+    }
+
+    @Test
+    public void testClear_dropsViewsStillInflating() {
+        LayoutPreInflater inflater = LayoutPreInflater.getInstance();
+        ShadowLooper.pauseMainLooper();
+        inflater.preInflate(mActivity, R.style.FirebaseUI, R.layout.fui_sign_in_layout);
+
+        inflater.clear();
+        ShadowLooper.unPauseMainLooper();
+
+        assertThat(inflater.take(mActivity, R.layout.fui_sign_in_layout)).isNull();
+    }
+
+    @Test
+    public void testClear_dropsUnusedViews() {
+        LayoutPreInflater inflater = LayoutPreInflater.getInstance();
+        inflater.preInflate(mActivity, R.style.FirebaseUI, R.layout.fui_sign_in_layout);
+
+        inflater.clear();
+
+        assertThat(inflater.take(mActivity, R.layout.fui_sign_in_layout)).isNull();
+    }
+
+    private static void collectClasses(View view, List<Class<?>> classes) {
+        classes.add(view.getClass());
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectClasses(group.getChildAt(i), classes);
+            }
+        }
+    }
+}
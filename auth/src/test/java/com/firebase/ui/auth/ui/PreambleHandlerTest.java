@@ -0,0 +1,80 @@
+package com.firebase.ui.auth.ui;
+
+import android.text.Spanned;
+import android.text.style.ClickableSpan;
+import android.widget.TextView;
+
+import com.firebase.ui.auth.AuthUI;
+import com.firebase.ui.auth.R;
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.ui.PreambleHandler;
+import com.google.firebase.FirebaseApp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreambleHandlerTest {
+    private FlowParameters mParams;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        mParams = new FlowParameters(FirebaseApp.DEFAULT_APP_NAME,
+                Collections.<AuthUI.IdentityProviderConfig>emptyList(),
+                "https://example.com/tos",
+                "https://example.com/privacy",
+                true);
+    }
+
+    @Test
+    public void testSetup_replacesTargetsWithLinks() {
+        TextView textView = setup(mParams);
+
+        String text = textView.getText().toString();
+        assertThat(text).doesNotContain("%");
+        assertThat(text).contains(RuntimeEnvironment.application.getString(
+                R.string.fui_terms_of_service));
+        assertThat(getLinks(textView)).hasLength(2);
+    }
+
+    @Test
+    public void testSetup_sameFlow_reusesSpans() {
+        ClickableSpan[] first = getLinks(setup(mParams));
+        ClickableSpan[] second = getLinks(setup(mParams));
+
+        assertThat(second[0]).isSameAs(first[0]);
+    }
+
+    @Test
+    public void testSetup_configurationChange_rebuildsSpans() {
+        ClickableSpan[] first = getLinks(setup(mParams));
+
+        RuntimeEnvironment.setQualifiers("+land");
+        ClickableSpan[] second = getLinks(setup(mParams));
+
+        assertThat(second[0]).isNotSameAs(first[0]);
+    }
+
+    private static TextView setup(FlowParameters params) {
+        TextView textView = new TextView(RuntimeEnvironment.application);
+        PreambleHandler.setup(RuntimeEnvironment.application,
+                params,
+                R.string.fui_tos_and_pp,
+                textView);
+        return textView;
+    }
+
+    private static ClickableSpan[] getLinks(TextView textView) {
+        Spanned text = (Spanned) textView.getText();
+        return text.getSpans(0, text.length(), ClickableSpan.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.firebase.ui.auth.ui;
+
+import com.firebase.ui.auth.util.ui.fieldvalidators.FormRules;
+import com.firebase.ui.auth.util.ui.fieldvalidators.RuleSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+@RunWith(RobolectricTestRunner.class)
+public class RuleSetTest {
+    /** The rule used by the forms before the character class scan. */
+    private static final Pattern LEGACY_PASSWORD =
+            Pattern.compile("^(?=.*\\d)(?=.*[a-z])(?=.*[A-Z])(?=.*[a-zA-Z]).*$");
+
+    private static final String[] PASSWORDS = {
+            "",
+            "password",
+            "PASSWORD",
+            "12345678",
+            "Password",
+            "password1",
+            "PASSWORD1",
+            "Password1",
+            "P4ssw0rd!",
+            "1aA",
+            "Sh0rt",
+            "ThisIsAVeryLongPassword1234567890",
+            "ÄÖÜäöü12",
+            "!@#$%^&*",
+    };
+
+    @Test
+    public void testScan_matchesLegacyRegex() {
+        int all = RuleSet.HAS_DIGIT | RuleSet.HAS_LOWER | RuleSet.HAS_UPPER;
+        for (String password : PASSWORDS) {
+            assertWithMessage(password)
+                    .that(RuleSet.scan(password) == all)
+                    .isEqualTo(LEGACY_PASSWORD.matcher(password).matches());
+        }
+    }
+
+    @Test
+    public void testPassword_matchesLegacyRules() {
+        for (String password : PASSWORDS) {
+            boolean legacy = password.length() >= FormRules.PASSWORD_MIN_LENGTH
+                    && password.length() <= FormRules.PASSWORD_MAX_LENGTH
+                    && LEGACY_PASSWORD.matcher(password).matches();
+            assertWithMessage(password)
+                    .that(FormRules.PASSWORD.check(password, null))
+                    .isEqualTo(legacy);
+        }
+    }
+
+    @Test
+    public void testCheck_composesOneLinePerError() {
+        StringBuilder errors = new StringBuilder();
+
+        assertThat(FormRules.PASSWORD.check("abc", errors)).isFalse();
+        assertThat(errors.toString()).isEqualTo(
+                "-at least 8 characters\n-at least 1 uppercase letter\n-at least 1 number");
+    }
+
+    @Test
+    public void testCheck_valid_noErrors() {
+        StringBuilder errors = new StringBuilder();
+
+        assertThat(FormRules.EMAIL.check("test@example.com", errors)).isTrue();
+        assertThat(errors.length()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCheck_null_treatedAsEmpty() {
+        StringBuilder errors = new StringBuilder();
+
+        assertThat(FormRules.EMAIL.check(null, errors)).isFalse();
+        assertThat(errors.toString()).isEqualTo(
+                "-email format error\n-email cannot be empty");
+    }
+}
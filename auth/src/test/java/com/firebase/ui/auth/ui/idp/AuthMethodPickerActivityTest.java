@@ -143,6 +143,22 @@ public class AuthMethodPickerActivityTest {
                 nextIntent.intent.getComponent().getClassName());
     }
 
+    @Test
+    public void testHandlersAreCreatedOnDemand() {
+        List<String> providers = Arrays.asList(
+                GoogleAuthProvider.PROVIDER_ID,
+                TwitterAuthProvider.PROVIDER_ID,
+                EmailAuthProvider.PROVIDER_ID);
+
+        AuthMethodPickerActivity authMethodPickerActivity = createActivity(providers);
+
+        assertEquals(0, authMethodPickerActivity.getConstructedHandlerCount());
+
+        authMethodPickerActivity.findViewById(R.id.googleSignInButton).performClick();
+
+        assertEquals(1, authMethodPickerActivity.getConstructedHandlerCount());
+    }
+
     private AuthMethodPickerActivity createActivityWithCustomLayout(List<String> providers,
                                                                     AuthMethodPickerLayout layout) {
         Intent startIntent = AuthMethodPickerActivity.Companion.createIntent(
@@ -0,0 +1,155 @@
+package com.firebase.ui.auth.viewmodel;
+
+import android.app.Activity;
+import android.content.Intent;
+
+import com.firebase.ui.auth.IdentityProviderResponse;
+import com.firebase.ui.auth.data.model.FlowParameters;
+import com.firebase.ui.auth.data.model.User;
+import com.firebase.ui.auth.data.remote.MainSignInHandler;
+import com.firebase.ui.auth.data.remote.ProfileMerger;
+import com.firebase.ui.auth.testhelpers.AutoCompleteTask;
+import com.firebase.ui.auth.testhelpers.TestConstants;
+import com.firebase.ui.auth.testhelpers.TestHelper;
+import com.firebase.ui.auth.util.data.AuthOperationManager;
+import com.firebase.ui.auth.util.data.ProviderUtils;
+import com.firebase.ui.auth.viewmodel.email.EmailSignInHandler;
+import com.google.android.gms.auth.api.credentials.Credential;
+import com.google.android.gms.auth.api.credentials.CredentialsClient;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.auth.AuthCredential;
+import com.google.firebase.auth.AuthResult;
+import com.google.firebase.auth.EmailAuthProvider;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthInvalidUserException;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.UserProfileChangeRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that cancelled sign-in chains don't issue any follow-up calls.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CancellationTest {
+
+    @Mock FirebaseAuth mMockAuth;
+    @Mock CredentialsClient mMockCredentials;
+    @Mock FirebaseUser mMockUser;
+    @Mock AuthResult mMockResult;
+
+    private FlowParameters mParams;
+    private CancellationTokenSource mCancellation;
+
+    @Before
+    public void setUp() {
+        TestHelper.initialize();
+        MockitoAnnotations.initMocks(this);
+
+        mParams = TestHelper.getFlowParameters(Collections.singletonList(
+                EmailAuthProvider.PROVIDER_ID));
+        when(mMockResult.getUser()).thenReturn(mMockUser);
+
+        mCancellation = new CancellationTokenSource();
+        mCancellation.cancel();
+    }
+
+    @Test
+    public void testProfileMerger_cancelled_doesNotUpdateProfile() {
+        IdentityProviderResponse response = new IdentityProviderResponse.Builder(
+                new User.Builder(EmailAuthProvider.PROVIDER_ID, TestConstants.EMAIL)
+                        .setName(TestConstants.NAME)
+                        .build())
+                .build();
+
+        Task<AuthResult> task = new ProfileMerger(response, mCancellation.getToken())
+                .then(AutoCompleteTask.forSuccess(mMockResult));
+
+        assertThat(task.isCanceled()).isTrue();
+        verify(mMockUser, never()).updateProfile(any(UserProfileChangeRequest.class));
+    }
+
+    @Test
+    public void testSafeLink_cancelled_doesNotLink() {
+        FirebaseAuth scratchAuth = mock(FirebaseAuth.class);
+        when(scratchAuth.signInWithCredential(any(AuthCredential.class)))
+                .thenReturn(AutoCompleteTask.forSuccess(mMockResult));
+        AuthOperationManager.getInstance().mScratchAuth = scratchAuth;
+
+        AuthCredential credential = GoogleAuthProvider.getCredential(TestConstants.TOKEN, null);
+        AuthOperationManager.getInstance()
+                .safeLink(credential, credential, mParams, mCancellation.getToken());
+
+        verify(mMockUser, never()).linkWithCredential(any(AuthCredential.class));
+    }
+
+    @Test
+    public void testFetchSortedProviders_cancelled_doesNotFetch() {
+        Task<?> task = ProviderUtils.fetchSortedProviders(
+                mMockAuth, mParams, TestConstants.EMAIL, mCancellation.getToken());
+
+        assertThat(task.isCanceled()).isTrue();
+        verify(mMockAuth, never()).fetchSignInMethodsForEmail(anyString());
+    }
+
+    @Test
+    public void testEmailSignIn_cleared_doesNotLink() {
+        EmailSignInHandler handler = new EmailSignInHandler(RuntimeEnvironment.application);
+        handler.initializeForTesting(mParams, mMockAuth, mMockCredentials);
+        when(mMockAuth.signInWithEmailAndPassword(TestConstants.EMAIL, TestConstants.PASSWORD))
+                .thenReturn(AutoCompleteTask.forSuccess(mMockResult));
+
+        handler.onCleared();
+
+        IdentityProviderResponse response = new IdentityProviderResponse.Builder(
+                new User.Builder(GoogleAuthProvider.PROVIDER_ID, TestConstants.EMAIL).build())
+                .setToken(TestConstants.TOKEN)
+                .build();
+        handler.startSignIn(TestConstants.EMAIL,
+                TestConstants.PASSWORD,
+                response,
+                GoogleAuthProvider.getCredential(TestConstants.TOKEN, null));
+
+        verify(mMockUser, never()).linkWithCredential(any(AuthCredential.class));
+        verify(mMockUser, never()).updateProfile(any(UserProfileChangeRequest.class));
+        assertThat(handler.getOperation().getValue()).isNull();
+    }
+
+    @Test
+    public void testMainSignIn_cleared_doesNotDeleteCredential() {
+        MainSignInHandler handler = new MainSignInHandler(RuntimeEnvironment.application);
+        handler.initializeForTesting(mParams, mMockAuth, mMockCredentials);
+        when(mMockAuth.signInWithEmailAndPassword(TestConstants.EMAIL, TestConstants.PASSWORD))
+                .thenReturn(AutoCompleteTask.<AuthResult>forFailure(
+                        new FirebaseAuthInvalidUserException("ERROR_USER_NOT_FOUND", "")));
+
+        handler.onCleared();
+
+        Credential credential = new Credential.Builder(TestConstants.EMAIL)
+                .setPassword(TestConstants.PASSWORD)
+                .build();
+        handler.onActivityResult(RequestCodes.CRED_HINT,
+                Activity.RESULT_OK,
+                new Intent().putExtra(Credential.EXTRA_KEY, credential));
+
+        verify(mMockCredentials, never()).delete(any(Credential.class));
+    }
+}
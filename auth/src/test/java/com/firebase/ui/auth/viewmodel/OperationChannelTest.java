@@ -0,0 +1,88 @@
+package com.firebase.ui.auth.viewmodel;
+
+import com.firebase.ui.auth.data.model.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import androidx.lifecycle.Observer;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link OperationChannel}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OperationChannelTest {
+    @Mock Observer<Resource<String>> mFirstObserver;
+    @Mock Observer<Resource<String>> mSecondObserver;
+
+    private OperationChannel<String> mChannel;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mChannel = new OperationChannel<>();
+    }
+
+    @Test
+    public void testForLoading_isShared() {
+        assertThat(Resource.<String>forLoading()).isSameAs(Resource.<Integer>forLoading());
+    }
+
+    @Test
+    public void testSuccess_isDeliveredOnce() {
+        Resource<String> success = Resource.forSuccess("done");
+        mChannel.observeForever(mFirstObserver);
+        mChannel.setValue(success);
+
+        // Simulates an observer registered after a configuration change
+        mChannel.removeObserver(mFirstObserver);
+        mChannel.observeForever(mSecondObserver);
+
+        verify(mFirstObserver).onChanged(success);
+        verify(mSecondObserver, never()).onChanged(success);
+    }
+
+    @Test
+    public void testLoading_isRedelivered() {
+        Resource<String> loading = Resource.forLoading();
+        mChannel.observeForever(mFirstObserver);
+        mChannel.setValue(loading);
+
+        mChannel.removeObserver(mFirstObserver);
+        mChannel.observeForever(mSecondObserver);
+
+        verify(mFirstObserver).onChanged(loading);
+        verify(mSecondObserver).onChanged(loading);
+    }
+
+    @Test
+    public void testSetValue_fromBackgroundThread_isConflated() throws InterruptedException {
+        mChannel.observeForever(mFirstObserver);
+        final Resource<String> first = Resource.forSuccess("first");
+        final Resource<String> last = Resource.forSuccess("last");
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                mChannel.setValue(first);
+                mChannel.setValue(last);
+            }
+        });
+        thread.start();
+        thread.join();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        verify(mFirstObserver, never()).onChanged(first);
+        verify(mFirstObserver, times(1)).onChanged(last);
+    }
+}
@@ -7,7 +7,6 @@ import kotlin.String
  *   `$ ./gradlew buildSrcVersions`
  */
 object Libs {
-  val vvalidator: String = "com.afollestad:vvalidator:" + Versions.vvalidator
 
   /**
    * http://developer.android.com/tools/extras/support-materialProgress.html
@@ -47,6 +46,24 @@ object Libs {
   const val lifecycle_extensions: String = "androidx.lifecycle:lifecycle-extensions:" +
       Versions.androidx_lifecycle
 
+  /**
+   * https://developer.android.com/topic/libraries/architecture/index.html
+   */
+  const val lifecycle_viewmodel_ktx: String = "androidx.lifecycle:lifecycle-viewmodel-ktx:" +
+      Versions.androidx_lifecycle
+
+  /**
+   * https://github.com/Kotlin/kotlinx.coroutines
+   */
+  const val kotlinx_coroutines_android: String =
+      "org.jetbrains.kotlinx:kotlinx-coroutines-android:" + Versions.kotlinx_coroutines
+
+  /**
+   * https://github.com/Kotlin/kotlinx.coroutines
+   */
+  const val kotlinx_coroutines_play_services: String =
+      "org.jetbrains.kotlinx:kotlinx-coroutines-play-services:" + Versions.kotlinx_coroutines
+
   const val multidex_instrumentation: String = "androidx.multidex:multidex-instrumentation:" +
       Versions.multidex_instrumentation
 
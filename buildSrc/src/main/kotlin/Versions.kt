@@ -12,7 +12,6 @@ import org.gradle.plugin.use.PluginDependencySpec
  * YOU are responsible for updating manually the dependency version.
  */
 object Versions {
-  const val vvalidator: String = "0.5.1"
 
   const val annotation: String = "1.1.0"
 
@@ -80,6 +79,8 @@ object Versions {
 
   const val kotlin_stdlib_jdk8: String = "1.3.50"
 
+  const val kotlinx_coroutines: String = "1.3.2"
+
   const val mockito_android: String = "2.21.0"
 
   const val robolectric: String = "4.3"